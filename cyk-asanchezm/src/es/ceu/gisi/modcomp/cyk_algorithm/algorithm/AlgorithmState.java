@@ -0,0 +1,94 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Tabla completa de CYK de una palabra (sin poda), tal como la muestra
+ * algorithmStateToString: una fila por longitud de subcadena, de la más corta
+ * a la más larga, con las casillas separadas por tabuladores y, en cada
+ * casilla, los no terminales en orden de declaración. Se escribe directamente
+ * desde la tabla de bits, sin construir un String por casilla.
+ *
+ * Es el resultado de CYKAlgorithm.algorithmState: no depende del algoritmo
+ * que la calculó (guarda la gramática compilada con la que se rellenó), así
+ * que se puede escribir varias veces aunque el algoritmo siga analizando
+ * otras palabras, desde este u otros hilos, o cambie de gramática.
+ *
+ * @author Álvaro Sánchez Mateos
+ */
+public final class AlgorithmState {
+
+    private final CompiledGrammar gramatica;
+    private final CYKChart tabla;
+
+    /**
+     * @param gramatica La gramática compilada con la que se rellena la tabla.
+     * @param tabla La tabla, rellena o por rellenar fila a fila.
+     */
+    AlgorithmState(CompiledGrammar gramatica, CYKChart tabla) {
+        this.gramatica = gramatica;
+        this.tabla = tabla;
+    }
+
+    /**
+     * @return TRUE si el axioma está en la casilla superior.
+     */
+    public boolean isDerived() {
+        return (this.tabla.n > 0) && this.tabla.contains(0, this.tabla.n, this.gramatica.axioma);
+    }
+
+    /**
+     * @return La longitud de la palabra.
+     */
+    public int getWordLength() {
+        return this.tabla.n;
+    }
+
+    /**
+     * Escribe la tabla completa.
+     *
+     * @param destino Donde se escribe la tabla.
+     * @throws IOException Si falla la escritura en el destino.
+     */
+    public void writeTo(Appendable destino) throws IOException {
+        for (int longitud = 1; longitud <= this.tabla.n; longitud++) {
+            writeRow(destino, longitud);
+        }
+    }
+
+    /**
+     * Escribe la fila de las subcadenas de la longitud indicada, que ya tiene
+     * que estar rellena.
+     *
+     * @param destino Donde se escribe la fila.
+     * @param longitud Longitud de las subcadenas de la fila.
+     * @throws IOException Si falla la escritura en el destino.
+     */
+    void writeRow(Appendable destino, int longitud) throws IOException {
+        long[] celdas = this.tabla.celdas;
+        int numPalabras = this.tabla.palabras;
+        for (int inicio = 0; inicio + longitud <= this.tabla.n; inicio++) {
+            int casilla = this.tabla.cell(inicio, longitud);
+            for (int palabra = 0; palabra < numPalabras; palabra++) {
+                for (long resto = celdas[casilla + palabra]; resto != 0; resto &= resto - 1) {
+                    destino.append(this.gramatica.noTerminales[(palabra << 6) + Long.numberOfTrailingZeros(resto)]);
+                }
+            }
+            destino.append('\t');
+        }
+        destino.append('\n');
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder resultado = new StringBuilder();
+        try {
+            writeTo(resultado);
+        } catch (IOException e) {
+            // StringBuilder nunca lanza IOException.
+            throw new UncheckedIOException(e);
+        }
+        return resultado.toString();
+    }
+}
@@ -0,0 +1,24 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm;
+
+/**
+ * Resultado de CYKAlgorithm.ambiguity: cuántos árboles de derivación tiene
+ * una palabra desde el axioma, distinguiendo sólo entre ninguno, uno y más de
+ * uno.
+ *
+ * @author Álvaro Sánchez Mateos
+ */
+public enum Ambiguity {
+
+    /**
+     * La palabra no pertenece al lenguaje.
+     */
+    NOT_DERIVED,
+    /**
+     * La palabra tiene exactamente un árbol de derivación.
+     */
+    UNAMBIGUOUS,
+    /**
+     * La palabra tiene dos o más árboles de derivación.
+     */
+    AMBIGUOUS
+}
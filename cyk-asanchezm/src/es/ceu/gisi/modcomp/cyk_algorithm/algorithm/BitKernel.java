@@ -0,0 +1,93 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm;
+
+/**
+ * Operaciones sobre máscaras de bits guardadas en arrays de long, usadas por
+ * CYKChart para combinar casillas. Hay una implementación escalar y otra con
+ * la Vector API (jdk.incubator.vector); la vectorial sólo está disponible si
+ * la JVM se arranca con "--add-modules jdk.incubator.vector", por lo que se
+ * elige en tiempo de ejecución con select.
+ *
+ * La propiedad del sistema "cyk.kernel" permite forzar la elección: "scalar",
+ * "vector" o "auto" (por defecto).
+ *
+ * @author Álvaro Sánchez Mateos
+ */
+interface BitKernel {
+
+    /**
+     * destino[desdeDestino + i] |= origen[desdeOrigen + i], para i en [0,
+     * longitud).
+     */
+    void orInto(long[] destino, int desdeDestino, long[] origen, int desdeOrigen, int longitud);
+
+    /**
+     * destino[desdeDestino + i] &amp;= origen[desdeOrigen + i], para i en [0,
+     * longitud).
+     */
+    void andInto(long[] destino, int desdeDestino, long[] origen, int desdeOrigen, int longitud);
+
+    /**
+     * @return TRUE si las dos máscaras tienen algún bit en común.
+     */
+    boolean intersects(long[] primera, int desdePrimera, long[] segunda, int desdeSegunda, int longitud);
+
+    /**
+     * @return TRUE si la máscara no tiene ningún bit a uno.
+     */
+    boolean isZero(long[] mascara, int desde, int longitud);
+
+    /**
+     * @return Nombre de la implementación, para informes y pruebas de
+     * rendimiento.
+     */
+    String name();
+
+    /**
+     * Elige la implementación para casillas de la longitud indicada. En modo
+     * automático la vectorial sólo se usa si está disponible y la casilla
+     * ocupa al menos un vector completo.
+     *
+     * @param palabras Longs por casilla.
+     * @return La implementación elegida.
+     */
+    static BitKernel select(int palabras) {
+        String modo = System.getProperty("cyk.kernel", "auto");
+        if (modo.equals("scalar")) {
+            return ScalarBitKernel.INSTANCIA;
+        }
+        BitKernel vectorial = VectorSupport.KERNEL;
+        if ((vectorial == null) || (modo.equals("auto") && (palabras < VectorSupport.LONGS_POR_VECTOR))) {
+            return ScalarBitKernel.INSTANCIA;
+        }
+        return vectorial;
+    }
+
+    /**
+     * Carga perezosa de la implementación vectorial: sólo se enlaza
+     * VectorBitKernel si el módulo incubador está en la capa de arranque.
+     */
+    final class VectorSupport {
+
+        static final BitKernel KERNEL;
+        static final int LONGS_POR_VECTOR;
+
+        static {
+            BitKernel kernel = null;
+            int longs = Integer.MAX_VALUE;
+            if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+                try {
+                    kernel = (BitKernel) Class.forName("es.ceu.gisi.modcomp.cyk_algorithm.algorithm.VectorBitKernel")
+                            .getDeclaredConstructor().newInstance();
+                    longs = ((VectorBitKernel) kernel).longsPerVector();
+                } catch (ReflectiveOperationException | LinkageError e) {
+                    kernel = null;
+                }
+            }
+            KERNEL = kernel;
+            LONGS_POR_VECTOR = longs;
+        }
+
+        private VectorSupport() {
+        }
+    }
+}
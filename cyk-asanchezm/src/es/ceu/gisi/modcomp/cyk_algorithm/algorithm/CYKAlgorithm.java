@@ -1,36 +1,72 @@
 package es.ceu.gisi.modcomp.cyk_algorithm.algorithm;
 
 import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.ParseLimitExceededException;
 import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.interfaces.CYKAlgorithmInterface;
-import java.util.ArrayList;
-import java.util.Map;
-import java.util.TreeMap;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Esta clase contiene la implementación de la interfaz CYKAlgorithmInterface
  * que establece los métodos necesarios para el correcto funcionamiento del
  * proyecto de programación de la asignatura Modelos de Computación.
  *
+ * La gramática se guarda como una sucesión de versiones inmutables
+ * (GrammarVersion): cada cambio publica una versión nueva de forma atómica,
+ * así que se puede modificar o recargar (reload) mientras otros hilos
+ * analizan palabras con copias del algoritmo.
+ *
+ * Los métodos que modifican la gramática (addProduction, removeGrammar...)
+ * publican la versión sin compilar, porque el cambio debe verse en la
+ * siguiente llamada a isDerived: esa llamada compila la versión en el hilo
+ * que analiza, y si llegan varias a la vez las demás esperan a que termine.
+ * Para cambiar la gramática de un servicio en marcha sin ese coste hay que
+ * usar reload, que compila la versión nueva en segundo plano y sigue
+ * analizando con la anterior mientras tanto.
+ *
  * @author Sergio Saugar García <sergio.saugargarcia@ceu.es>
  */
 public class CYKAlgorithm implements CYKAlgorithmInterface {
 
-    private ArrayList<Character> conjuntoNoTerminales;
-    private ArrayList<Character> conjuntoTerminales;
-    private Character axioma;
-    private Map<Character, ArrayList<String>> producciones;
-    private ArrayList<String> casillasGeneradas;
+    private volatile GrammarVersion version;
+    private final AtomicLong recargas;
 
     /**
      * Constructor de CYKAlgorithm que inicializa los juntos de elementos y
      * producciones.
      */
     public CYKAlgorithm() {
-        this.axioma = null;
-        this.conjuntoNoTerminales = new ArrayList();
-        this.conjuntoTerminales = new ArrayList();
-        this.producciones = new TreeMap< Character, ArrayList<String>>();
-        this.casillasGeneradas = new ArrayList();
+        this.version = GrammarVersion.empty();
+        this.recargas = new AtomicLong();
+    }
+
+    /**
+     * Constructor de copia: crea un CYKAlgorithm independiente con la misma
+     * gramática que el original, que se puede modificar sin afectar a la copia
+     * (los análisis no guardan estado en la instancia, así que no hace falta
+     * una copia por hilo para reconocer en paralelo). La versión de
+     * la gramática es inmutable, así que la copia es inmediata y comparte con
+     * el original la gramática compilada (y sus contadores del prefiltro)
+     * hasta que alguno de los dos cambie.
+     *
+     * @param original El algoritmo cuya gramática se copia.
+     */
+    public CYKAlgorithm(CYKAlgorithm original) {
+        this();
+        this.version = original.version;
     }
 
     @Override
@@ -40,18 +76,9 @@ public class CYKAlgorithm implements CYKAlgorithmInterface {
      * @param nonterminal Por ejemplo, 'S'
      * @throws CYKAlgorithmException Si el elemento no es una letra mayúscula.
      */
-    public void addNonTerminal(char nonterminal) throws CYKAlgorithmException {
-
-        if (Character.isUpperCase(nonterminal)) {
-
-            if (this.conjuntoNoTerminales.contains(nonterminal)) {
-                throw new CYKAlgorithmException();
-            }
-
-            this.conjuntoNoTerminales.add(nonterminal);
-        } else {
-            throw new CYKAlgorithmException();
-        }
+    public synchronized void addNonTerminal(char nonterminal) throws CYKAlgorithmException {
+        GrammarVersion.checkNonTerminal(this.version.noTerminales, nonterminal);
+        this.version = this.version.withNonTerminal(nonterminal);
     }
 
     @Override
@@ -61,17 +88,9 @@ public class CYKAlgorithm implements CYKAlgorithmInterface {
      * @param terminal Por ejemplo, 'a'
      * @throws CYKAlgorithmException Si el elemento no es una letra minúscula.
      */
-    public void addTerminal(char terminal) throws CYKAlgorithmException {
-        if (Character.isLowerCase(terminal)) {
-
-            if (this.conjuntoTerminales.contains(terminal)) {
-                throw new CYKAlgorithmException();
-            }
-
-            this.conjuntoTerminales.add(terminal);
-        } else {
-            throw new CYKAlgorithmException();
-        }
+    public synchronized void addTerminal(char terminal) throws CYKAlgorithmException {
+        GrammarVersion.checkTerminal(this.version.terminales, terminal);
+        this.version = this.version.withTerminal(terminal);
     }
 
     @Override
@@ -83,14 +102,9 @@ public class CYKAlgorithm implements CYKAlgorithmInterface {
      * @throws CYKAlgorithmException Si el elemento insertado no forma parte del
      * conjunto de elementos no terminales.
      */
-    public void setStartSymbol(char nonterminal) throws CYKAlgorithmException {
-
-        if (conjuntoNoTerminales.contains(nonterminal)) {
-            this.axioma = nonterminal;
-        } else {
-            throw new CYKAlgorithmException();
-        }
-
+    public synchronized void setStartSymbol(char nonterminal) throws CYKAlgorithmException {
+        GrammarVersion.checkStartSymbol(this.version.noTerminales, nonterminal);
+        this.version = this.version.withStartSymbol(nonterminal);
     }
 
     @Override
@@ -104,53 +118,87 @@ public class CYKAlgorithm implements CYKAlgorithmInterface {
      * compuesta por elementos (terminales o no terminales) no definidos
      * previamente.
      */
-    public void addProduction(char nonterminal, String production) throws CYKAlgorithmException {
-        if (!this.conjuntoNoTerminales.contains(nonterminal)) {
-            throw new CYKAlgorithmException();
-        }
-        if (production.length() == 1) {
-
-            if (!this.conjuntoTerminales.contains(production.charAt(0))) {
-                throw new CYKAlgorithmException();
-            }
-            if (this.producciones.containsKey(nonterminal)) {
-
-                for (String produccion : this.producciones.get(nonterminal)) {
-                    if (produccion == production) {
-                        throw new CYKAlgorithmException();
-                    }
-                }
+    public synchronized void addProduction(char nonterminal, String production) throws CYKAlgorithmException {
+        GrammarVersion actual = this.version;
+        GrammarVersion.checkProduction(actual.noTerminales, actual.terminales, actual.producciones.get(nonterminal),
+                nonterminal, production);
+        this.version = actual.withProduction(nonterminal, production);
+    }
 
-                this.producciones.get(nonterminal).add(production);
-            } else {
-                this.producciones.put(nonterminal, new ArrayList());
-                this.producciones.get(nonterminal).add(production);
-            }
+    /**
+     * Empieza una serie de cambios sobre la versión actual, para publicarlos
+     * todos juntos con publish.
+     *
+     * @return Un Builder con la versión actual.
+     */
+    GrammarVersion.Builder edit() {
+        return new GrammarVersion.Builder(this.version);
+    }
 
-        } else if (production.length() == 2) {
+    /**
+     * Publica como una sola versión los cambios acumulados en el Builder,
+     * sustituyendo a la versión actual.
+     *
+     * @param cambios Los cambios que se publican.
+     */
+    synchronized void publish(GrammarVersion.Builder cambios) {
+        this.version = cambios.build();
+    }
 
-            char letra1 = production.charAt(0);
-            char letra2 = production.charAt(1);
-            if ((!this.conjuntoNoTerminales.contains(letra1)) || (!this.conjuntoNoTerminales.contains(letra2))) {
-                throw new CYKAlgorithmException();
-            }
-            if (this.producciones.containsKey(nonterminal)) {
+    /**
+     * Sustituye la gramática por la de otro CYKAlgorithm, construida aparte,
+     * sin interrumpir los análisis en curso. La nueva versión se compila en
+     * segundo plano y, cuando está lista, se publica de forma atómica: hasta
+     * entonces isDerived sigue usando la versión anterior sin esperar, y los
+     * análisis que ya habían empezado terminan con la versión con la que
+     * empezaron. Si entretanto se modifica esta gramática, la recarga la
+     * sustituye igualmente.
+     *
+     * Cada recarga toma un turno al llamarse. Si se solapan varias, gana la
+     * última que se pidió aunque otra anterior termine de compilar después:
+     * la anterior ya no se publica.
+     *
+     * @param nueva El algoritmo con la nueva gramática (no se modifica).
+     * @return Un futuro que se completa con el número de la versión vigente
+     * cuando termina la recarga: la de nueva o, si una recarga posterior la
+     * ha adelantado, la de esa otra.
+     */
+    public CompletableFuture<Long> reload(CYKAlgorithm nueva) {
+        return reload(nueva, ForkJoinPool.commonPool());
+    }
 
-                for (String produccion : this.producciones.get(nonterminal)) {
-                    if (produccion == production) {
-                        throw new CYKAlgorithmException();
-                    }
+    /**
+     * Igual que reload(CYKAlgorithm), compilando la nueva versión con el
+     * ejecutor indicado.
+     *
+     * @param nueva El algoritmo con la nueva gramática (no se modifica).
+     * @param ejecutor Donde se compila la nueva versión.
+     * @return Un futuro que se completa con el número de la versión vigente
+     * cuando termina la recarga.
+     */
+    public CompletableFuture<Long> reload(CYKAlgorithm nueva, Executor ejecutor) {
+        GrammarVersion siguiente = nueva.version;
+        long turno = this.recargas.incrementAndGet();
+        return CompletableFuture.supplyAsync(() -> {
+            siguiente.compiled();
+            synchronized (this) {
+                if (this.recargas.get() == turno) {
+                    this.version = siguiente;
                 }
-
-                this.producciones.get(nonterminal).add(production);
-            } else {
-                this.producciones.put(nonterminal, new ArrayList());
-                this.producciones.get(nonterminal).add(production);
+                return this.version.numero;
             }
+        }, ejecutor);
+    }
 
-        } else {
-            throw new CYKAlgorithmException();
-        }
+    /**
+     * Número de la versión actual de la gramática. Cada cambio crea una
+     * versión con un número mayor; las copias comparten el número mientras no
+     * cambien.
+     *
+     * @return El número de versión.
+     */
+    public long getVersion() {
+        return this.version.numero;
     }
 
     @Override
@@ -167,76 +215,233 @@ public class CYKAlgorithm implements CYKAlgorithmInterface {
      * gramática es vacía o si el autómata carece de axioma.
      */
     public boolean isDerived(String word) throws CYKAlgorithmException {
+        return isDerived(word, ParseLimits.NONE);
+    }
+
+    /**
+     * Igual que isDerived(String), pero abandonando el análisis si se supera
+     * alguno de los límites indicados. Los límites se comprueban mientras se
+     * rellena la tabla, al calcular cada casilla.
+     *
+     * @param word La palabra a verificar.
+     * @param limites Plazo, presupuesto de operaciones y cancelación.
+     * @return TRUE si la palabra pertenece, FALSE en caso contrario
+     * @throws ParseLimitExceededException Si se supera algún límite, con el
+     * progreso alcanzado hasta entonces.
+     * @throws CYKAlgorithmException En los mismos casos que isDerived(String).
+     */
+    public boolean isDerived(String word, ParseLimits limites) throws CYKAlgorithmException {
+        CompiledGrammar gramatica = gramaticaParaAnalizar();
+        return reconocer(gramatica, gramatica.tokens(word), limites);
+    }
 
-        this.casillasGeneradas.clear();
+    /**
+     * Igual que isDerived(String), pero con la palabra ya traducida a
+     * identificadores de token: el índice de cada terminal en el orden en que
+     * se declaró (CompiledGrammar.terminalIndex). La fila de la tabla de
+     * longitud 1 se rellena indexando directamente con cada identificador.
+     *
+     * @param tokens La palabra como identificadores de token. No se modifica.
+     * @return TRUE si la palabra pertenece, FALSE en caso contrario
+     * @throws CYKAlgorithmException Si algún identificador no corresponde a
+     * un terminal, si la gramática es vacía o si carece de axioma.
+     */
+    public boolean isDerived(int[] tokens) throws CYKAlgorithmException {
+        return isDerived(tokens, ParseLimits.NONE);
+    }
+
+    /**
+     * Igual que isDerived(int[]), con los límites de isDerived(String,
+     * ParseLimits).
+     *
+     * @param tokens La palabra como identificadores de token.
+     * @param limites Plazo, presupuesto de operaciones y cancelación.
+     * @return TRUE si la palabra pertenece, FALSE en caso contrario
+     * @throws ParseLimitExceededException Si se supera algún límite.
+     * @throws CYKAlgorithmException En los mismos casos que isDerived(int[]).
+     */
+    public boolean isDerived(int[] tokens, ParseLimits limites) throws CYKAlgorithmException {
+        CompiledGrammar gramatica = gramaticaParaAnalizar();
+        gramatica.checkTokens(tokens);
+        return reconocer(gramatica, tokens, limites);
+    }
+
+    /**
+     * Traduce el texto con el tokenizador indicado y comprueba si la
+     * secuencia de tokens pertenece al lenguaje.
+     *
+     * @param texto El texto a analizar.
+     * @param tokenizador Traduce el texto a identificadores de token.
+     * @return TRUE si la secuencia pertenece, FALSE en caso contrario
+     * @throws CYKAlgorithmException Si el tokenizador no reconoce algún token
+     * y en los mismos casos que isDerived(int[]).
+     */
+    public boolean isDerived(CharSequence texto, Tokenizer tokenizador) throws CYKAlgorithmException {
+        return isDerived(tokenizador.tokenize(texto), ParseLimits.NONE);
+    }
 
-        if ((this.producciones.isEmpty()) || (this.axioma == null)) {
+    /**
+     * Comprueba que se puede analizar con la versión actual de la gramática y
+     * devuelve la gramática compilada.
+     */
+    private CompiledGrammar gramaticaParaAnalizar() throws CYKAlgorithmException {
+        GrammarVersion actual = this.version;
+        if ((actual.producciones.isEmpty()) || (actual.axioma == null)) {
             throw new CYKAlgorithmException();
         }
-        for (int indice = 0; indice < word.length(); indice++) {
-            if ((!this.conjuntoTerminales.contains(word.charAt(indice))) || Character.isUpperCase(word.charAt(indice))) {
-                throw new CYKAlgorithmException();
-            }
+
+        return actual.compiled();
+    }
+
+    private static boolean reconocer(CompiledGrammar gramatica, int[] simbolos, ParseLimits limites)
+            throws ParseLimitExceededException {
+        return gramatica.recognize(simbolos,
+                (limites == ParseLimits.NONE) ? null : new ParseMonitor(limites, simbolos.length));
+    }
+
+    /**
+     * Igual que isDerived(String), con un tiempo máximo.
+     *
+     * @param word La palabra a verificar.
+     * @param tiempo Tiempo máximo del análisis, contado desde la llamada.
+     * @return TRUE si la palabra pertenece, FALSE en caso contrario
+     * @throws ParseLimitExceededException Si se agota el tiempo.
+     * @throws CYKAlgorithmException En los mismos casos que isDerived(String).
+     */
+    public boolean isDerived(String word, Duration tiempo) throws CYKAlgorithmException {
+        return isDerived(word, ParseLimits.NONE.withTimeout(tiempo));
+    }
+
+    /**
+     * Igual que isDerived(String), con un presupuesto de operaciones.
+     *
+     * @param word La palabra a verificar.
+     * @param maxOperaciones Número máximo de pares de casillas combinados.
+     * @return TRUE si la palabra pertenece, FALSE en caso contrario
+     * @throws ParseLimitExceededException Si se agota el presupuesto.
+     * @throws CYKAlgorithmException En los mismos casos que isDerived(String).
+     */
+    public boolean isDerived(String word, long maxOperaciones) throws CYKAlgorithmException {
+        return isDerived(word, ParseLimits.NONE.withMaxOperations(maxOperaciones));
+    }
+
+    /**
+     * Cuenta los árboles de derivación de la palabra desde el axioma, sin
+     * pasar de limite: limite significa "limite o más". Cada casilla de la
+     * tabla lleva un contador por no terminal en lugar de un bit, así que el
+     * coste es casi el de isDerived y no se construye ningún árbol.
+     *
+     * @param word La palabra a analizar.
+     * @param limite Valor máximo del resultado (al menos 1).
+     * @return El número de árboles de derivación, saturado en limite (0 si la
+     * palabra no pertenece al lenguaje).
+     * @throws CYKAlgorithmException En los mismos casos que isDerived(String).
+     * @throws IllegalArgumentException Si limite es menor que 1.
+     */
+    public int countDerivations(String word, int limite) throws CYKAlgorithmException {
+        return countDerivations(word, limite, ParseLimits.NONE);
+    }
+
+    /**
+     * Igual que countDerivations(String, int), con los límites de análisis
+     * de isDerived(String, ParseLimits). Se comprueban al rellenar la tabla
+     * y también al contar, así que el presupuesto de operaciones cubre las
+     * dos pasadas.
+     *
+     * @param word La palabra a analizar.
+     * @param limite Valor máximo del resultado (al menos 1).
+     * @param limites Plazo, presupuesto de operaciones y cancelación.
+     * @return El número de árboles de derivación, saturado en limite.
+     * @throws ParseLimitExceededException Si se supera algún límite.
+     * @throws CYKAlgorithmException En los mismos casos que isDerived(String).
+     */
+    public int countDerivations(String word, int limite, ParseLimits limites) throws CYKAlgorithmException {
+        if (limite < 1) {
+            throw new IllegalArgumentException("El límite debe ser al menos 1: " + limite);
         }
 
-        Boolean resultado = false;
-        int n = word.length();
-        String[][] tabla = new String[n][n];
-        String casilla = "";
-        for (int i = 0; i < n; i++) {
+        CompiledGrammar gramatica = gramaticaParaAnalizar();
+        int[] simbolos = gramatica.tokens(word);
+        return gramatica.countDerivations(simbolos, limite,
+                (limites == ParseLimits.NONE) ? null : new ParseMonitor(limites, simbolos.length));
+    }
 
-            for (char noTerminal : this.conjuntoNoTerminales) {
-                String caracterPalabra = word.charAt(i) + "";
-                if (this.producciones.get(noTerminal).contains(caracterPalabra)) {
-                    casilla = casilla + noTerminal;
-                }
-            }
+    /**
+     * Indica si la palabra no pertenece al lenguaje, tiene un único árbol de
+     * derivación o tiene varios. Es countDerivations con límite 2.
+     *
+     * @param word La palabra a analizar.
+     * @return NOT_DERIVED, UNAMBIGUOUS o AMBIGUOUS.
+     * @throws CYKAlgorithmException En los mismos casos que isDerived(String).
+     */
+    public Ambiguity ambiguity(String word) throws CYKAlgorithmException {
+        switch (countDerivations(word, 2)) {
+            case 0:
+                return Ambiguity.NOT_DERIVED;
+            case 1:
+                return Ambiguity.UNAMBIGUOUS;
+            default:
+                return Ambiguity.AMBIGUOUS;
+        }
+    }
+
+    /**
+     * Calcula en una sola pasada todos los no terminales que derivan la
+     * palabra completa, es decir, el contenido de la casilla superior de la
+     * tabla. Equivale a llamar a isDerived con cada no terminal como axioma,
+     * por lo que no hace falta haber establecido uno.
+     *
+     * @param word La palabra a analizar.
+     * @return Los no terminales que derivan la palabra, en orden de
+     * declaración (vacío si la palabra es vacía).
+     * @throws CYKAlgorithmException Si la gramática no tiene producciones o la
+     * palabra contiene símbolos que no son terminales de la gramática.
+     */
+    public Set<Character> derivingNonTerminals(String word) throws CYKAlgorithmException {
 
-            tabla[i][0] = casilla;
-            this.casillasGeneradas.add(casilla);
-            casilla = "";
+        GrammarVersion actual = this.version;
+        if (actual.producciones.isEmpty()) {
+            throw new CYKAlgorithmException();
         }
 
-        String combinaciones = "";
-        for (int j = 1; j < n; j++) {
-            for (int i = 0; i < (n - j); i++) {
-                tabla[i][j] = "";
-
-                for (int k = 0; k <= (j - 1); k++) {
-
-                    String totalVertical = tabla[i][k];
-                    String totalDiagonal = tabla[i + k + 1][j - k - 1];
-                    for (int indice = 0; indice < totalVertical.length(); indice++) {
-                        for (int indice2 = 0; indice2 < totalDiagonal.length(); indice2++) {
-                            combinaciones = totalVertical.charAt(indice) + "" + totalDiagonal.charAt(indice2);
-
-                            for (char noTerminal : this.conjuntoNoTerminales) {
-                                if (this.producciones.get(noTerminal).contains(combinaciones)) {
-
-                                    CharSequence elementoNoTerminal = noTerminal + "";
-                                    if (casilla.contains(elementoNoTerminal)) {
-                                    } else {
-                                        casilla = casilla + noTerminal;
-                                    }
-
-                                }
-                            }
-                            combinaciones = "";
-                        }
-                    }
-                }
-                tabla[i][j] = casilla;
-                this.casillasGeneradas.add(casilla);
-                casilla = "";
+        CompiledGrammar gramatica = actual.compiled();
+        long[] casilla = gramatica.topCell(gramatica.tokens(word), null);
+        LinkedHashSet<Character> resultado = new LinkedHashSet();
+        for (int palabra = 0; palabra < casilla.length; palabra++) {
+            for (long resto = casilla[palabra]; resto != 0; resto &= resto - 1) {
+                resultado.add(gramatica.noTerminales[(palabra << 6) + Long.numberOfTrailingZeros(resto)]);
             }
         }
+        return resultado;
+    }
 
-        CharSequence axiomaFinal = this.axioma.toString();
-        if (tabla[0][word.length() - 1].contains(axiomaFinal)) {
-            resultado = true;
+    /**
+     * Rellena la tabla completa de CYK (sin poda) para la palabra indicada,
+     * sobre la tabla de bits de la gramática compilada. Si se proporciona un
+     * destino, cada fila de la tabla se escribe en él en cuanto se termina de
+     * calcular, sin esperar a que el algoritmo acabe.
+     *
+     * @param word La palabra a verificar.
+     * @param destino Donde se escriben las filas según se generan, o null si
+     * no se desea escribir la tabla.
+     * @return La tabla calculada.
+     * @throws CYKAlgorithmException En los mismos casos que isDerived.
+     * @throws IOException Si falla la escritura en el destino.
+     */
+    private AlgorithmState rellenarTabla(String word, Appendable destino) throws CYKAlgorithmException, IOException {
+        CompiledGrammar gramatica = gramaticaParaAnalizar();
+        int[] simbolos = gramatica.tokens(word);
+
+        CYKChart tabla = new CYKChart(simbolos.length, gramatica.palabras);
+        AlgorithmState estado = new AlgorithmState(gramatica, tabla);
+        for (int longitud = 1; longitud <= simbolos.length; longitud++) {
+            tabla.fillRow(gramatica, simbolos, longitud, null, null);
+            if (destino != null) {
+                estado.writeRow(destino, longitud);
+            }
         }
 
-        return resultado;
+        return estado;
     }
 
     @Override
@@ -256,19 +461,93 @@ public class CYKAlgorithm implements CYKAlgorithmInterface {
      * gramática es vacía o si el autómata carece de axioma.
      */
     public String algorithmStateToString(String word) throws CYKAlgorithmException {
-        isDerived(word);
-
-        String cadenaResultado = "";
-        int indiceString = 0;
-        for (int longitud = word.length(); longitud > 0; longitud--) {
-            for (int indice = 1; indice <= longitud; indice++) {
-                cadenaResultado = cadenaResultado + this.casillasGeneradas.get(indiceString) + "\t";
-                indiceString++;
-            }
-            cadenaResultado = cadenaResultado + "\n";
+        return algorithmState(word).toString();
+    }
+
+    /**
+     * Calcula la tabla completa de CYK para la palabra y la devuelve como un
+     * objeto independiente del algoritmo, que se puede consultar o escribir
+     * (AlgorithmState.writeTo) tantas veces como se quiera sin volver a
+     * ejecutar el algoritmo. isDerived no guarda la tabla completa: reconoce
+     * con el DFA o con una tabla podada.
+     *
+     * @param word La palabra a verificar, tiene que estar formada sólo por
+     * elementos terminales.
+     * @return La tabla calculada.
+     * @throws CYKAlgorithmException En los mismos casos que isDerived.
+     */
+    public AlgorithmState algorithmState(String word) throws CYKAlgorithmException {
+        try {
+            return rellenarTabla(word, null);
+        } catch (IOException e) {
+            // Sin destino no se escribe nada.
+            throw new UncheckedIOException(e);
         }
+    }
+
+    /**
+     * Versión en streaming de algorithmStateToString: calcula la tabla para la
+     * palabra y escribe cada fila en el destino en cuanto se completa, sin
+     * construir el String completo en memoria.
+     *
+     * @param word La palabra a verificar, tiene que estar formada sólo por
+     * elementos terminales.
+     * @param destino Donde se escribe la tabla (un Writer, un StringBuilder...).
+     * @return TRUE si la palabra pertenece, FALSE en caso contrario
+     * @throws CYKAlgorithmException En los mismos casos que isDerived.
+     * @throws IOException Si falla la escritura en el destino.
+     */
+    public boolean writeAlgorithmState(String word, Appendable destino) throws CYKAlgorithmException, IOException {
+        return rellenarTabla(word, destino).isDerived();
+    }
 
-        return cadenaResultado;
+    /**
+     * Versión en streaming de algorithmStateToString que escribe la tabla, en
+     * UTF-8, sobre un OutputStream. El flujo se vacía pero no se cierra.
+     *
+     * @param word La palabra a verificar.
+     * @param salida El flujo donde se escribe la tabla.
+     * @return TRUE si la palabra pertenece, FALSE en caso contrario
+     * @throws CYKAlgorithmException En los mismos casos que isDerived.
+     * @throws IOException Si falla la escritura en el flujo.
+     */
+    public boolean writeAlgorithmState(String word, OutputStream salida) throws CYKAlgorithmException, IOException {
+        Writer escritor = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8));
+        boolean resultado = rellenarTabla(word, escritor).isDerived();
+        escritor.flush();
+
+        return resultado;
+    }
+
+    /**
+     * @return La versión actual de la gramática.
+     */
+    GrammarVersion currentVersion() {
+        return this.version;
+    }
+
+    /**
+     * Devuelve la versión actual de la gramática compilada a índices enteros.
+     * La compilación se hace en el hilo que llama la primera vez que se
+     * necesita tras cada cambio en la gramática, salvo si el cambio se hizo
+     * con reload, que la compila en segundo plano antes de publicarla.
+     *
+     * @return La gramática compilada.
+     */
+    public CompiledGrammar getCompiledGrammar() {
+        return this.version.compiled();
+    }
+
+    /**
+     * Indica con qué motor reconoce isDerived las palabras de la gramática
+     * actual: un DFA mínimo de coste lineal si se ha podido demostrar que el
+     * lenguaje es regular, o la tabla de CYK en otro caso. Los métodos que
+     * muestran la tabla siempre usan CYK.
+     *
+     * @return El motor elegido para la gramática actual.
+     */
+    public RecognitionEngine getEngine() {
+        return getCompiledGrammar().getEngine();
     }
 
     @Override
@@ -276,12 +555,11 @@ public class CYKAlgorithm implements CYKAlgorithmInterface {
      * Elimina todos los elementos que se han introducido hasta el momento en la
      * gramática (elementos terminales, no terminales, axioma y producciones),
      * dejando el algoritmo listo para volver a insertar una gramática nueva.
+     * Publica una versión vacía: los análisis en curso terminan con la
+     * anterior.
      */
-    public void removeGrammar() {
-        this.conjuntoTerminales.clear();
-        this.conjuntoNoTerminales.clear();
-        this.producciones.clear();
-        this.axioma = null;
+    public synchronized void removeGrammar() {
+        this.version = GrammarVersion.empty();
     }
 
     @Override
@@ -301,13 +579,14 @@ public class CYKAlgorithm implements CYKAlgorithmInterface {
         String cadenaProducciones = "";
         String stringFinal = "";
         int indice = 0;
+        List<String> produccionesNoTerminal = this.version.producciones.get(nonterminal);
 
-        if (this.producciones.get(nonterminal) != null) {
-            for (String produccion : this.producciones.get(nonterminal)) {
+        if (produccionesNoTerminal != null) {
+            for (String produccion : produccionesNoTerminal) {
                 cadenaProducciones = cadenaProducciones + produccion;
 
                 indice++;
-                if (indice != this.producciones.get(nonterminal).size()) {
+                if (indice != produccionesNoTerminal.size()) {
                     cadenaProducciones = cadenaProducciones + "|";
                 }
             }
@@ -327,7 +606,7 @@ public class CYKAlgorithm implements CYKAlgorithmInterface {
      */
     public String getGrammar() {
         String gramatica = "";
-        for (char noTerminal : this.conjuntoTerminales) {
+        for (char noTerminal : this.version.terminales) {
             gramatica = gramatica + getProductions(noTerminal) + "\n";
         }
 
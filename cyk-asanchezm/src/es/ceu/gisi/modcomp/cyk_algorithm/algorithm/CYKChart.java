@@ -0,0 +1,338 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.ParseLimitExceededException;
+
+/**
+ * Tabla de CYK con las casillas empaquetadas en bits: cada casilla es una
+ * máscara de "palabras" longs con un bit por no terminal, y todas las
+ * casillas se guardan seguidas en un único array, ordenadas por longitud de
+ * subcadena y, dentro de cada longitud, por posición.
+ *
+ * @author Álvaro Sánchez Mateos
+ */
+final class CYKChart {
+
+    final int n;
+    final int palabras;
+    final long[] celdas;
+
+    /**
+     * @param n Longitud de la palabra.
+     * @param palabras Longs por casilla.
+     */
+    CYKChart(int n, int palabras) {
+        this.n = n;
+        this.palabras = palabras;
+        this.celdas = new long[(n * (n + 1) / 2) * palabras];
+    }
+
+    /**
+     * @param inicio Posición del primer símbolo de la subcadena.
+     * @param longitud Longitud de la subcadena.
+     * @return La posición en celdas del primer long de la casilla.
+     */
+    int cell(int inicio, int longitud) {
+        int anteriores = (longitud - 1) * (this.n + 1) - (longitud - 1) * longitud / 2;
+        return (anteriores + inicio) * this.palabras;
+    }
+
+    /**
+     * @return TRUE si el no terminal está en la casilla (inicio, longitud).
+     */
+    boolean contains(int inicio, int longitud, int noTerminal) {
+        return (this.celdas[cell(inicio, longitud) + (noTerminal >>> 6)] & (1L << noTerminal)) != 0;
+    }
+
+    /**
+     * Rellena la tabla para la palabra.
+     *
+     * @param gramatica La gramática compilada.
+     * @param simbolos La palabra, como índices de terminal (n símbolos).
+     * @param podar Si se quitan de cada casilla los no terminales que, según
+     * las tablas de poda, no pueden formar parte de una derivación de la
+     * palabra desde el axioma. La poda no cambia si el axioma está en la
+     * casilla superior, pero sí el contenido del resto de casillas.
+     * @param monitor Seguimiento de los límites del análisis, o null si no
+     * hay límites.
+     * @throws ParseLimitExceededException Si se supera algún límite.
+     */
+    void fill(CompiledGrammar gramatica, int[] simbolos, boolean podar, ParseMonitor monitor)
+            throws ParseLimitExceededException {
+        long[] candidatos = podar ? new long[this.palabras] : null;
+        for (int longitud = 1; longitud <= this.n; longitud++) {
+            fillRow(gramatica, simbolos, longitud, candidatos, monitor);
+        }
+    }
+
+    /**
+     * Rellena las casillas de las subcadenas de la longitud indicada. Las de
+     * longitudes menores tienen que estar ya rellenas: fill llama a este
+     * método para cada longitud, y quien quiera ir mostrando la tabla según
+     * se calcula puede hacer lo mismo y escribir cada fila al terminarla.
+     *
+     * @param gramatica La gramática compilada.
+     * @param simbolos La palabra, como índices de terminal (n símbolos).
+     * @param longitud Longitud de las subcadenas de la fila.
+     * @param candidatos Espacio para los candidatos de la poda (palabras
+     * longs), o null para rellenar sin poda.
+     * @param monitor Seguimiento de los límites del análisis, o null si no
+     * hay límites.
+     * @throws ParseLimitExceededException Si se supera algún límite.
+     */
+    void fillRow(CompiledGrammar gramatica, int[] simbolos, int longitud, long[] candidatos, ParseMonitor monitor)
+            throws ParseLimitExceededException {
+        int numPalabras = this.palabras;
+        PruningTables poda = (candidatos != null) ? gramatica.poda : null;
+
+        if (longitud == 1) {
+            for (int inicio = 0; inicio < this.n; inicio++) {
+                int destino = cell(inicio, 1);
+                int origen = simbolos[inicio] * numPalabras;
+                if (poda != null) {
+                    poda.candidates(simbolos, inicio, 1, candidatos);
+                }
+                for (int palabra = 0; palabra < numPalabras; palabra++) {
+                    long mascara = gramatica.mascaraUnaria[origen + palabra];
+                    this.celdas[destino + palabra] = (poda != null) ? mascara & candidatos[palabra] : mascara;
+                }
+            }
+        } else {
+            for (int inicio = 0; inicio + longitud <= this.n; inicio++) {
+                if ((poda != null) && !poda.candidates(simbolos, inicio, longitud, candidatos)) {
+                    continue;
+                }
+                if (monitor != null) {
+                    monitor.cell(longitud - 1);
+                }
+                int destino = cell(inicio, longitud);
+                for (int corte = 1; corte < longitud; corte++) {
+                    combine(gramatica, this.celdas, cell(inicio, corte), cell(inicio + corte, longitud - corte), destino,
+                            candidatos);
+                }
+                if (poda != null) {
+                    gramatica.kernel.andInto(this.celdas, destino, candidatos, 0, numPalabras);
+                }
+            }
+        }
+        if (monitor != null) {
+            monitor.rowCompleted(longitud);
+        }
+    }
+
+    /**
+     * Cuenta los árboles de derivación de la palabra desde el no terminal
+     * indicado, sobre la tabla ya rellena. Sólo los no terminales presentes
+     * en cada casilla llevan contador, saturado en limite: sólo se cuentan
+     * los pares B, C presentes en las dos partes, igual que al rellenar, así
+     * que el coste es del mismo orden que el del reconocimiento y no se
+     * construye ningún bosque.
+     *
+     * Memoria: un int por casilla con la posición de sus contadores y un
+     * contador por bit activo de la tabla, de 1 byte si limite cabe en un
+     * byte (como el limite 2 de ambiguity), de 2 si cabe en un short y de 4
+     * si no. Con todos los no terminales en todas las casillas (el peor caso)
+     * son n²/2 · (4 + numNoTerminales) bytes con limite 2, unos 60 MB para
+     * n = 2000 y 26 no terminales; la tabla de bits ocupa n²/2 · 8 bytes por
+     * cada 64 no terminales.
+     *
+     * Con la tabla podada el resultado es el mismo: la poda sólo quita no
+     * terminales que no aparecen en ninguna derivación de la palabra completa
+     * desde el axioma.
+     *
+     * Los límites se comprueban igual que en fill, casilla a casilla: el
+     * presupuesto de operaciones es el mismo para las dos pasadas.
+     *
+     * @param gramatica La gramática con la que se rellenó la tabla.
+     * @param raiz Índice del no terminal de la casilla superior.
+     * @param limite Valor máximo de los contadores (al menos 1).
+     * @param monitor Seguimiento de los límites del análisis, o null si no
+     * hay límites.
+     * @return El número de árboles de derivación, o limite si hay limite o
+     * más.
+     * @throws ParseLimitExceededException Si se supera algún límite.
+     */
+    int countDerivations(CompiledGrammar gramatica, int raiz, int limite, ParseMonitor monitor)
+            throws ParseLimitExceededException {
+        int numPalabras = this.palabras;
+
+        // Los contadores de la casilla i van de inicioCuentas[i] a
+        // inicioCuentas[i + 1], uno por bit activo y en el orden de los bits.
+        int numCasillas = this.celdas.length / numPalabras;
+        int[] inicioCuentas = new int[numCasillas + 1];
+        long total = 0;
+        for (int casilla = 0; casilla < numCasillas; casilla++) {
+            inicioCuentas[casilla] = Math.toIntExact(total);
+            for (int palabra = 0; palabra < numPalabras; palabra++) {
+                total += Long.bitCount(this.celdas[casilla * numPalabras + palabra]);
+            }
+        }
+        inicioCuentas[numCasillas] = Math.toIntExact(total);
+        Contadores cuentas = new Contadores((int) total, limite);
+
+        // Longitud 1: como no hay producciones repetidas, cada no terminal de
+        // la casilla tiene exactamente una regla A::=a que lo justifica.
+        for (int inicio = 0; inicio < this.n; inicio++) {
+            int casilla = cell(inicio, 1) / numPalabras;
+            for (int posicion = inicioCuentas[casilla]; posicion < inicioCuentas[casilla + 1]; posicion++) {
+                cuentas.set(posicion, 1);
+            }
+        }
+
+        for (int longitud = 2; longitud <= this.n; longitud++) {
+            for (int inicio = 0; inicio + longitud <= this.n; inicio++) {
+                int destino = cell(inicio, longitud);
+                if (gramatica.kernel.isZero(this.celdas, destino, numPalabras)) {
+                    continue;
+                }
+                if (monitor != null) {
+                    monitor.cell(longitud - 1);
+                }
+                int baseDestino = inicioCuentas[destino / numPalabras];
+                for (int corte = 1; corte < longitud; corte++) {
+                    int izquierda = cell(inicio, corte);
+                    int derecha = cell(inicio + corte, longitud - corte);
+                    int baseDerecha = inicioCuentas[derecha / numPalabras];
+                    // Los B de la izquierda se recorren en el orden de sus
+                    // contadores.
+                    int posicionIzquierda = inicioCuentas[izquierda / numPalabras];
+                    for (int palabra = 0; palabra < numPalabras; palabra++) {
+                        for (long resto = this.celdas[izquierda + palabra]; resto != 0; resto &= resto - 1) {
+                            int b = (palabra << 6) + Long.numberOfTrailingZeros(resto);
+                            long cuentaIzquierda = cuentas.get(posicionIzquierda++);
+                            int[] derechos = gramatica.paresDerecha[b];
+                            long[] cabezas = gramatica.paresCabezas[b];
+                            for (int par = 0; par < derechos.length; par++) {
+                                int c = derechos[par];
+                                if ((this.celdas[derecha + (c >>> 6)] & (1L << c)) == 0) {
+                                    continue;
+                                }
+                                long producto = cuentaIzquierda * cuentas.get(posicion(baseDerecha, derecha, c));
+                                int anteriores = baseDestino;
+                                for (int p = 0; p < numPalabras; p++) {
+                                    long presentes = this.celdas[destino + p];
+                                    long nuevas = cabezas[par * numPalabras + p] & presentes;
+                                    for (; nuevas != 0; nuevas &= nuevas - 1) {
+                                        int a = anteriores + Long.bitCount(presentes & (Long.lowestOneBit(nuevas) - 1));
+                                        cuentas.add(a, producto, limite);
+                                    }
+                                    anteriores += Long.bitCount(presentes);
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+            if (monitor != null) {
+                monitor.rowCounted();
+            }
+        }
+        int superior = cell(0, this.n);
+        if ((this.celdas[superior + (raiz >>> 6)] & (1L << raiz)) == 0) {
+            return 0;
+        }
+        return cuentas.get(posicion(inicioCuentas[superior / numPalabras], superior, raiz));
+    }
+
+    /**
+     * @return La posición del contador del no terminal, que tiene que estar
+     * en la casilla: la del primer contador de la casilla más los bits
+     * activos anteriores al suyo.
+     */
+    private int posicion(int primera, int casilla, int noTerminal) {
+        int posicion = primera;
+        int palabra = noTerminal >>> 6;
+        for (int anterior = 0; anterior < palabra; anterior++) {
+            posicion += Long.bitCount(this.celdas[casilla + anterior]);
+        }
+        return posicion + Long.bitCount(this.celdas[casilla + palabra] & ((1L << noTerminal) - 1));
+    }
+
+    /**
+     * Contadores saturados de countDerivations, del tipo más pequeño en el
+     * que cabe el límite.
+     */
+    private static final class Contadores {
+
+        private final byte[] bytes;
+        private final short[] cortos;
+        private final int[] enteros;
+
+        private Contadores(int tamanio, int limite) {
+            this.bytes = (limite <= Byte.MAX_VALUE) ? new byte[tamanio] : null;
+            this.cortos = ((this.bytes == null) && (limite <= Short.MAX_VALUE)) ? new short[tamanio] : null;
+            this.enteros = ((this.bytes == null) && (this.cortos == null)) ? new int[tamanio] : null;
+        }
+
+        private int get(int posicion) {
+            if (this.bytes != null) {
+                return this.bytes[posicion];
+            }
+            return (this.cortos != null) ? this.cortos[posicion] : this.enteros[posicion];
+        }
+
+        /**
+         * Suma al contador, saturando en limite.
+         */
+        private void add(int posicion, long cantidad, int limite) {
+            if (this.bytes != null) {
+                this.bytes[posicion] = (byte) Math.min(limite, this.bytes[posicion] + cantidad);
+            } else if (this.cortos != null) {
+                this.cortos[posicion] = (short) Math.min(limite, this.cortos[posicion] + cantidad);
+            } else {
+                this.enteros[posicion] = (int) Math.min(limite, this.enteros[posicion] + cantidad);
+            }
+        }
+
+        private void set(int posicion, int valor) {
+            if (this.bytes != null) {
+                this.bytes[posicion] = (byte) valor;
+            } else if (this.cortos != null) {
+                this.cortos[posicion] = (short) valor;
+            } else {
+                this.enteros[posicion] = valor;
+            }
+        }
+    }
+
+    /**
+     * Añade a la casilla destino las cabezas A de todas las reglas A::=BC con
+     * B en la casilla izquierda y C en la derecha. Si hay candidatos, se
+     * saltan los B que no son hijo izquierdo de ninguna cabeza candidata, y
+     * siempre los B sin ningún C compañero en la casilla derecha. Las
+     * operaciones sobre casillas completas se delegan en el BitKernel de la
+     * gramática.
+     *
+     * Es estática para poder usarla con cualquier array de casillas de
+     * gramatica.palabras longs: SubstringSearch guarda las suyas en un buffer
+     * circular.
+     */
+    static void combine(CompiledGrammar gramatica, long[] celdas, int izquierda, int derecha, int destino,
+            long[] candidatos) {
+        int numPalabras = gramatica.palabras;
+        BitKernel kernel = gramatica.kernel;
+        if (kernel.isZero(celdas, izquierda, numPalabras) || kernel.isZero(celdas, derecha, numPalabras)) {
+            return;
+        }
+
+        for (int palabra = 0; palabra < numPalabras; palabra++) {
+            for (long resto = celdas[izquierda + palabra]; resto != 0; resto &= resto - 1) {
+                int b = (palabra << 6) + Long.numberOfTrailingZeros(resto);
+                if ((candidatos != null)
+                        && !kernel.intersects(gramatica.poda.cabezasPorIzquierda, b * numPalabras, candidatos, 0, numPalabras)) {
+                    continue;
+                }
+                if (!kernel.intersects(celdas, derecha, gramatica.mascaraDerecha, b * numPalabras, numPalabras)) {
+                    continue;
+                }
+                int[] derechos = gramatica.paresDerecha[b];
+                long[] cabezas = gramatica.paresCabezas[b];
+                for (int par = 0; par < derechos.length; par++) {
+                    int c = derechos[par];
+                    if ((celdas[derecha + (c >>> 6)] & (1L << c)) != 0) {
+                        kernel.orInto(celdas, destino, cabezas, par * numPalabras, numPalabras);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,468 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.ParseLimitExceededException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Representación compilada e inmutable de una gramática en FNC: los no
+ * terminales y terminales se sustituyen por índices (en su orden de
+ * declaración) y las producciones por arrays de enteros. Al ser inmutable se
+ * puede compartir entre hilos y entre versiones de la gramática.
+ *
+ * Si la gramática genera un lenguaje que RegularGrammarCompiler sabe
+ * reconocer como regular, la compilación incluye además su DFA mínimo. Si no,
+ * antes de rellenar la tabla se pasa el prefiltro lineal de PruningTables, y
+ * la gramática lleva la cuenta (segura entre hilos) de cuántas palabras ha
+ * descartado; es lo único que cambia tras la construcción.
+ *
+ * Como Tokenizer traduce cada carácter a su índice de terminal con una tabla
+ * indexada por el propio carácter.
+ *
+ * @author Álvaro Sánchez Mateos
+ */
+public final class CompiledGrammar implements Tokenizer {
+
+    final char[] noTerminales;
+    final char[] terminales;
+    final int[] indiceTerminal;
+    final int axioma;
+    final int[][] unarias;
+    final int[] reglaIzquierda;
+    final int[] reglaDerecha;
+    final int[] reglaCabeza;
+    final int palabras;
+    final long[] mascaraUnaria;
+    final int[][] paresDerecha;
+    final long[][] paresCabezas;
+    final long[] mascaraDerecha;
+    final BitKernel kernel;
+    final PruningTables poda;
+    final Dfa dfa;
+    private final LongAdder prefiltradas;
+    private final LongAdder descartadas;
+
+    /**
+     * @param noTerminales Símbolo de cada no terminal, por índice.
+     * @param terminales Símbolo de cada terminal, por índice.
+     * @param axioma Índice del axioma, o -1 si no hay.
+     * @param unarias Para cada terminal t, los no terminales A con A::=t.
+     * @param reglaIzquierda Para cada regla binaria A::=BC, el índice de B.
+     * @param reglaDerecha Para cada regla binaria A::=BC, el índice de C.
+     * @param reglaCabeza Para cada regla binaria A::=BC, el índice de A.
+     */
+    CompiledGrammar(char[] noTerminales, char[] terminales, int axioma, int[][] unarias,
+            int[] reglaIzquierda, int[] reglaDerecha, int[] reglaCabeza) {
+        this.noTerminales = noTerminales;
+        this.terminales = terminales;
+        this.axioma = axioma;
+        this.unarias = unarias;
+        this.reglaIzquierda = reglaIzquierda;
+        this.reglaDerecha = reglaDerecha;
+        this.reglaCabeza = reglaCabeza;
+
+        int mayor = -1;
+        for (char terminal : terminales) {
+            mayor = Math.max(mayor, terminal);
+        }
+        this.indiceTerminal = new int[mayor + 1];
+        Arrays.fill(this.indiceTerminal, -1);
+        for (int indice = 0; indice < terminales.length; indice++) {
+            this.indiceTerminal[terminales[indice]] = indice;
+        }
+
+        // Tablas del relleno con bits: cada casilla es una máscara de
+        // "palabras" longs con un bit por no terminal.
+        int numNoTerminales = noTerminales.length;
+        this.palabras = Math.max(1, (numNoTerminales + 63) >>> 6);
+        this.mascaraUnaria = new long[terminales.length * this.palabras];
+        for (int terminal = 0; terminal < terminales.length; terminal++) {
+            for (int cabeza : unarias[terminal]) {
+                this.mascaraUnaria[terminal * this.palabras + (cabeza >>> 6)] |= 1L << cabeza;
+            }
+        }
+
+        // Para cada B, los C con alguna regla A::=BC (como lista y como
+        // máscara) y la máscara de las A de cada par.
+        ArrayList<Integer>[] derechos = new ArrayList[numNoTerminales];
+        for (int noTerminal = 0; noTerminal < numNoTerminales; noTerminal++) {
+            derechos[noTerminal] = new ArrayList();
+        }
+        for (int regla = 0; regla < reglaCabeza.length; regla++) {
+            if (!derechos[reglaIzquierda[regla]].contains(reglaDerecha[regla])) {
+                derechos[reglaIzquierda[regla]].add(reglaDerecha[regla]);
+            }
+        }
+        this.paresDerecha = new int[numNoTerminales][];
+        this.paresCabezas = new long[numNoTerminales][];
+        this.mascaraDerecha = new long[numNoTerminales * this.palabras];
+        for (int noTerminal = 0; noTerminal < numNoTerminales; noTerminal++) {
+            this.paresDerecha[noTerminal] = derechos[noTerminal].stream().mapToInt(Integer::intValue).toArray();
+            this.paresCabezas[noTerminal] = new long[this.paresDerecha[noTerminal].length * this.palabras];
+            for (int c : this.paresDerecha[noTerminal]) {
+                this.mascaraDerecha[noTerminal * this.palabras + (c >>> 6)] |= 1L << c;
+            }
+        }
+        for (int regla = 0; regla < reglaCabeza.length; regla++) {
+            int par = derechos[reglaIzquierda[regla]].indexOf(reglaDerecha[regla]);
+            this.paresCabezas[reglaIzquierda[regla]][par * this.palabras + (reglaCabeza[regla] >>> 6)]
+                    |= 1L << reglaCabeza[regla];
+        }
+
+        this.kernel = BitKernel.select(this.palabras);
+        this.poda = (axioma >= 0) ? new PruningTables(this) : null;
+        this.dfa = (axioma >= 0) ? RegularGrammarCompiler.compile(this) : null;
+        this.prefiltradas = new LongAdder();
+        this.descartadas = new LongAdder();
+    }
+
+    /**
+     * Compila la gramática formada por los elementos indicados.
+     *
+     * @param noTerminales Los no terminales, en orden de declaración.
+     * @param terminales Los terminales, en orden de declaración.
+     * @param axioma El axioma, o null si todavía no se ha establecido.
+     * @param producciones Las producciones de cada no terminal ("BC" o "a").
+     * @return La gramática compilada.
+     */
+    static CompiledGrammar compile(List<Character> noTerminales, List<Character> terminales, Character axioma,
+            Map<Character, ? extends List<String>> producciones) {
+        char[] simbolosNoTerminales = new char[noTerminales.size()];
+        HashMap<Character, Integer> indiceNoTerminal = new HashMap();
+        for (int indice = 0; indice < simbolosNoTerminales.length; indice++) {
+            simbolosNoTerminales[indice] = noTerminales.get(indice);
+            indiceNoTerminal.put(simbolosNoTerminales[indice], indice);
+        }
+        char[] simbolosTerminales = new char[terminales.size()];
+        HashMap<Character, Integer> indiceTerminal = new HashMap();
+        for (int indice = 0; indice < simbolosTerminales.length; indice++) {
+            simbolosTerminales[indice] = terminales.get(indice);
+            indiceTerminal.put(simbolosTerminales[indice], indice);
+        }
+
+        // Los conjuntos eliminan producciones repetidas.
+        LinkedHashSet<Integer>[] unarias = new LinkedHashSet[simbolosTerminales.length];
+        for (int indice = 0; indice < unarias.length; indice++) {
+            unarias[indice] = new LinkedHashSet();
+        }
+        LinkedHashSet<Long> binarias = new LinkedHashSet();
+        for (int cabeza = 0; cabeza < simbolosNoTerminales.length; cabeza++) {
+            List<String> produccionesCabeza = producciones.get(simbolosNoTerminales[cabeza]);
+            if (produccionesCabeza == null) {
+                continue;
+            }
+            for (String produccion : produccionesCabeza) {
+                if (produccion.length() == 1) {
+                    unarias[indiceTerminal.get(produccion.charAt(0))].add(cabeza);
+                } else {
+                    long izquierda = indiceNoTerminal.get(produccion.charAt(0));
+                    long derecha = indiceNoTerminal.get(produccion.charAt(1));
+                    binarias.add((((long) cabeza) << 42) | (izquierda << 21) | derecha);
+                }
+            }
+        }
+
+        int[][] tablaUnarias = new int[unarias.length][];
+        for (int indice = 0; indice < unarias.length; indice++) {
+            tablaUnarias[indice] = unarias[indice].stream().mapToInt(Integer::intValue).toArray();
+        }
+        int[] reglaIzquierda = new int[binarias.size()];
+        int[] reglaDerecha = new int[binarias.size()];
+        int[] reglaCabeza = new int[binarias.size()];
+        int regla = 0;
+        for (long codigo : binarias) {
+            reglaCabeza[regla] = (int) (codigo >>> 42);
+            reglaIzquierda[regla] = (int) ((codigo >>> 21) & 0x1FFFFF);
+            reglaDerecha[regla] = (int) (codigo & 0x1FFFFF);
+            regla++;
+        }
+
+        return new CompiledGrammar(simbolosNoTerminales, simbolosTerminales,
+                (axioma != null) ? indiceNoTerminal.get(axioma) : -1, tablaUnarias, reglaIzquierda, reglaDerecha, reglaCabeza);
+    }
+
+    /**
+     * Une varias gramáticas compiladas en una sola con los no terminales
+     * disjuntos: los de cada gramática se colocan a continuación de los de la
+     * anterior, y los terminales se comparten por carácter. La gramática
+     * resultante no tiene axioma (ni poda ni DFA), y la casilla superior de su
+     * tabla contiene los no terminales de todas las gramáticas que derivan la
+     * palabra.
+     *
+     * @param gramaticas Las gramáticas a unir.
+     * @return La gramática unida. El no terminal i de la gramática g tiene el
+     * índice i más la suma de los no terminales de las gramáticas anteriores.
+     */
+    static CompiledGrammar merge(List<CompiledGrammar> gramaticas) {
+        int numNoTerminales = 0;
+        int numReglas = 0;
+        LinkedHashSet<Character> terminales = new LinkedHashSet();
+        for (CompiledGrammar gramatica : gramaticas) {
+            numNoTerminales += gramatica.noTerminales.length;
+            numReglas += gramatica.reglaCabeza.length;
+            for (char terminal : gramatica.terminales) {
+                terminales.add(terminal);
+            }
+        }
+
+        char[] noTerminales = new char[numNoTerminales];
+        char[] simbolosTerminales = new char[terminales.size()];
+        HashMap<Character, Integer> indiceTerminal = new HashMap();
+        for (char terminal : terminales) {
+            indiceTerminal.put(terminal, indiceTerminal.size());
+            simbolosTerminales[indiceTerminal.size() - 1] = terminal;
+        }
+        ArrayList<Integer>[] unarias = new ArrayList[simbolosTerminales.length];
+        for (int indice = 0; indice < unarias.length; indice++) {
+            unarias[indice] = new ArrayList();
+        }
+        int[] reglaIzquierda = new int[numReglas];
+        int[] reglaDerecha = new int[numReglas];
+        int[] reglaCabeza = new int[numReglas];
+
+        int desplazamiento = 0;
+        int regla = 0;
+        for (CompiledGrammar gramatica : gramaticas) {
+            System.arraycopy(gramatica.noTerminales, 0, noTerminales, desplazamiento, gramatica.noTerminales.length);
+            for (int terminal = 0; terminal < gramatica.terminales.length; terminal++) {
+                for (int cabeza : gramatica.unarias[terminal]) {
+                    unarias[indiceTerminal.get(gramatica.terminales[terminal])].add(cabeza + desplazamiento);
+                }
+            }
+            for (int propia = 0; propia < gramatica.reglaCabeza.length; propia++) {
+                reglaIzquierda[regla] = gramatica.reglaIzquierda[propia] + desplazamiento;
+                reglaDerecha[regla] = gramatica.reglaDerecha[propia] + desplazamiento;
+                reglaCabeza[regla] = gramatica.reglaCabeza[propia] + desplazamiento;
+                regla++;
+            }
+            desplazamiento += gramatica.noTerminales.length;
+        }
+
+        int[][] tablaUnarias = new int[unarias.length][];
+        for (int indice = 0; indice < unarias.length; indice++) {
+            tablaUnarias[indice] = unarias[indice].stream().mapToInt(Integer::intValue).toArray();
+        }
+        return new CompiledGrammar(noTerminales, simbolosTerminales, -1, tablaUnarias, reglaIzquierda, reglaDerecha,
+                reglaCabeza);
+    }
+
+    /**
+     * @return TRUE si la gramática tiene alguna producción.
+     */
+    boolean hasProductions() {
+        if (this.reglaCabeza.length > 0) {
+            return true;
+        }
+        for (int[] cabezas : this.unarias) {
+            if (cabezas.length > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param simbolo Un carácter cualquiera.
+     * @return El índice del terminal (su identificador de token), o -1 si el
+     * carácter no es un terminal de la gramática.
+     */
+    public int terminalIndex(char simbolo) {
+        return (simbolo < this.indiceTerminal.length) ? this.indiceTerminal[simbolo] : -1;
+    }
+
+    /**
+     * Traduce la palabra a índices de terminal.
+     *
+     * @param palabra La palabra a traducir.
+     * @return El índice de terminal de cada símbolo.
+     * @throws CYKAlgorithmException Si algún símbolo no es un terminal de la
+     * gramática.
+     */
+    int[] tokens(CharSequence palabra) throws CYKAlgorithmException {
+        int[] simbolos = new int[palabra.length()];
+        for (int indice = 0; indice < simbolos.length; indice++) {
+            simbolos[indice] = terminalIndex(palabra.charAt(indice));
+            if (simbolos[indice] < 0) {
+                throw new CYKAlgorithmException();
+            }
+        }
+        return simbolos;
+    }
+
+    /**
+     * Traduce la palabra a índices de terminal, un token por carácter.
+     *
+     * @param texto La palabra a traducir.
+     * @return El índice de terminal de cada carácter.
+     * @throws CYKAlgorithmException Si algún carácter no es un terminal de la
+     * gramática.
+     */
+    @Override
+    public int[] tokenize(CharSequence texto) throws CYKAlgorithmException {
+        return tokens(texto);
+    }
+
+    /**
+     * @return El número de terminales; los identificadores de token válidos
+     * van de 0 a este número menos 1.
+     */
+    public int getTerminalCount() {
+        return this.terminales.length;
+    }
+
+    /**
+     * Comprueba que los identificadores de token corresponden a terminales de
+     * la gramática.
+     *
+     * @param simbolos Los identificadores de token.
+     * @throws CYKAlgorithmException Si alguno está fuera de rango.
+     */
+    void checkTokens(int[] simbolos) throws CYKAlgorithmException {
+        for (int simbolo : simbolos) {
+            if ((simbolo < 0) || (simbolo >= this.terminales.length)) {
+                throw new CYKAlgorithmException();
+            }
+        }
+    }
+
+    /**
+     * Indica si la palabra, ya traducida a índices de terminal, pertenece al
+     * lenguaje, usando el DFA si existe o el prefiltro y la tabla de CYK con
+     * poda.
+     *
+     * @param simbolos La palabra como índices de terminal.
+     * @param monitor Seguimiento de los límites del análisis, o null si no
+     * hay límites. El DFA es lineal y no los consulta.
+     * @return TRUE si el axioma deriva la palabra.
+     * @throws ParseLimitExceededException Si se supera algún límite.
+     */
+    boolean recognize(int[] simbolos, ParseMonitor monitor) throws ParseLimitExceededException {
+        if (this.dfa != null) {
+            return this.dfa.accepts(simbolos);
+        }
+        if (simbolos.length == 0) {
+            return false;
+        }
+        this.prefiltradas.increment();
+        if (!this.poda.prefilter(simbolos)) {
+            this.descartadas.increment();
+            return false;
+        }
+        return rellenarYComprobar(simbolos, monitor);
+    }
+
+    /**
+     * Igual que recognize, sin límites y sin contar la palabra en las
+     * estadísticas del prefiltro: para las comprobaciones internas (como las
+     * del generador de palabras), que no son tráfico de los usuarios.
+     *
+     * @param simbolos La palabra como índices de terminal.
+     * @return TRUE si el axioma deriva la palabra.
+     */
+    boolean accepts(int[] simbolos) {
+        if (this.dfa != null) {
+            return this.dfa.accepts(simbolos);
+        }
+        if ((simbolos.length == 0) || !this.poda.prefilter(simbolos)) {
+            return false;
+        }
+        try {
+            return rellenarYComprobar(simbolos, null);
+        } catch (ParseLimitExceededException e) {
+            // Sin monitor no hay límites que superar.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Rellena la tabla con poda e indica si el axioma deriva la palabra.
+     */
+    private boolean rellenarYComprobar(int[] simbolos, ParseMonitor monitor) throws ParseLimitExceededException {
+        CYKChart tabla = new CYKChart(simbolos.length, this.palabras);
+        tabla.fill(this, simbolos, true, monitor);
+        return tabla.contains(0, simbolos.length, this.axioma);
+    }
+
+    /**
+     * Cuenta los árboles de derivación de la palabra desde el axioma, con
+     * contadores saturados en limite. Siempre usa la tabla de CYK (el DFA no
+     * distingue derivaciones), pero sí el prefiltro y la poda. El monitor
+     * sigue tanto el relleno de la tabla como la pasada de conteo.
+     *
+     * @param simbolos La palabra como índices de terminal.
+     * @param limite Valor máximo del resultado (al menos 1).
+     * @param monitor Seguimiento de los límites del análisis, o null.
+     * @return El número de árboles de derivación, o limite si hay limite o
+     * más (0 si la palabra no pertenece al lenguaje).
+     * @throws ParseLimitExceededException Si se supera algún límite.
+     */
+    int countDerivations(int[] simbolos, int limite, ParseMonitor monitor) throws ParseLimitExceededException {
+        if ((simbolos.length == 0) || !this.poda.prefilter(simbolos)) {
+            return 0;
+        }
+        CYKChart tabla = new CYKChart(simbolos.length, this.palabras);
+        tabla.fill(this, simbolos, true, monitor);
+        if (!tabla.contains(0, simbolos.length, this.axioma)) {
+            return 0;
+        }
+        return tabla.countDerivations(this, this.axioma, limite, monitor);
+    }
+
+    /**
+     * Rellena la tabla de CYK completa, sin poda (no depende del axioma), y
+     * devuelve su casilla superior.
+     *
+     * @param simbolos La palabra como índices de terminal.
+     * @param monitor Seguimiento de los límites del análisis, o null.
+     * @return La máscara de los no terminales que derivan la palabra entera
+     * (vacía si la palabra es vacía).
+     * @throws ParseLimitExceededException Si se supera algún límite.
+     */
+    long[] topCell(int[] simbolos, ParseMonitor monitor) throws ParseLimitExceededException {
+        if (simbolos.length == 0) {
+            return new long[this.palabras];
+        }
+        CYKChart tabla = new CYKChart(simbolos.length, this.palabras);
+        tabla.fill(this, simbolos, false, monitor);
+        int desde = tabla.cell(0, simbolos.length);
+        return Arrays.copyOfRange(tabla.celdas, desde, desde + this.palabras);
+    }
+
+    /**
+     * @return El motor con el que se reconocen las palabras de esta
+     * gramática.
+     */
+    public RecognitionEngine getEngine() {
+        return (this.dfa != null) ? RecognitionEngine.DFA : RecognitionEngine.CYK;
+    }
+
+    /**
+     * @return Cuántas palabras (no vacías) han pasado por el prefiltro lineal
+     * antes de la tabla de CYK. Con el motor DFA siempre es 0.
+     */
+    public long getPrefilterChecks() {
+        return this.prefiltradas.sum();
+    }
+
+    /**
+     * @return Cuántas de esas palabras ha rechazado el prefiltro sin llegar
+     * a rellenar la tabla.
+     */
+    public long getPrefilterRejections() {
+        return this.descartadas.sum();
+    }
+
+    /**
+     * @return El nombre de las operaciones de bits ("scalar" o "vector(...)")
+     * que usa la tabla de CYK de esta gramática.
+     */
+    public String getKernelName() {
+        return this.kernel.name();
+    }
+}
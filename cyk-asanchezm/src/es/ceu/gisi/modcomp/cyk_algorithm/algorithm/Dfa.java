@@ -0,0 +1,51 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm;
+
+/**
+ * Autómata finito determinista dirigido por tabla. Los estados y los símbolos
+ * (índices de terminal de la gramática compilada) son enteros, y una
+ * transición a -1 representa el estado sumidero, del que ya no se puede
+ * aceptar.
+ *
+ * @author Álvaro Sánchez Mateos
+ */
+final class Dfa {
+
+    final int numEstados;
+    final int numSimbolos;
+    final int inicial;
+    final int[] transiciones;
+    final boolean[] finales;
+
+    /**
+     * @param numEstados Número de estados.
+     * @param numSimbolos Número de símbolos del alfabeto.
+     * @param inicial Estado inicial.
+     * @param transiciones Estado destino de cada par (estado, símbolo), en la
+     * posición estado * numSimbolos + símbolo, o -1.
+     * @param finales Si cada estado es de aceptación.
+     */
+    Dfa(int numEstados, int numSimbolos, int inicial, int[] transiciones, boolean[] finales) {
+        this.numEstados = numEstados;
+        this.numSimbolos = numSimbolos;
+        this.inicial = inicial;
+        this.transiciones = transiciones;
+        this.finales = finales;
+    }
+
+    /**
+     * Recorre el autómata con la palabra.
+     *
+     * @param simbolos La palabra a reconocer, como índices de terminal.
+     * @return TRUE si el autómata acepta la palabra.
+     */
+    boolean accepts(int[] simbolos) {
+        int estado = this.inicial;
+        for (int indice = 0; indice < simbolos.length; indice++) {
+            estado = this.transiciones[estado * this.numSimbolos + simbolos[indice]];
+            if (estado < 0) {
+                return false;
+            }
+        }
+        return this.finales[estado];
+    }
+}
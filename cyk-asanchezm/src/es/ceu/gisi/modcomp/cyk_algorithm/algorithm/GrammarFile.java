@@ -0,0 +1,165 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.interfaces.CYKAlgorithmInterface;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+/**
+ * Lectura de gramáticas en FNC desde ficheros de texto. Cada línea útil tiene
+ * el mismo formato que devuelve getProductions, por ejemplo:
+ *
+ * <pre>
+ * # Comentario
+ * axioma=S
+ * S::=AB|BC
+ * A::=BA|a
+ * </pre>
+ *
+ * Los no terminales (mayúsculas) y terminales (minúsculas) se deducen de las
+ * producciones en orden de aparición. Si no hay línea "axioma=", el axioma es
+ * la parte izquierda de la primera producción. Cualquier otro símbolo, o una
+ * producción que no tenga la forma A::=BC o A::=a, se rechaza al leer su
+ * línea, con el número de línea y el símbolo o la producción en el mensaje.
+ *
+ * @author Álvaro Sánchez Mateos
+ */
+public final class GrammarFile {
+
+    private static final String SEPARADOR = "::=";
+    private static final String PREFIJO_AXIOMA = "axioma=";
+
+    private GrammarFile() {
+    }
+
+    /**
+     * Carga la gramática del fichero indicado en el algoritmo. El algoritmo
+     * debe estar vacío (recién creado o tras removeGrammar).
+     *
+     * @param ruta Fichero con la gramática, en UTF-8.
+     * @param algoritmo Algoritmo donde se carga la gramática.
+     * @throws IOException Si no se puede leer el fichero.
+     * @throws CYKAlgorithmException Si el fichero no contiene una gramática en
+     * FNC válida.
+     */
+    public static void load(Path ruta, CYKAlgorithmInterface algoritmo) throws IOException, CYKAlgorithmException {
+        try (BufferedReader lector = Files.newBufferedReader(ruta, StandardCharsets.UTF_8)) {
+            read(lector, algoritmo);
+        }
+    }
+
+    /**
+     * Lee una gramática del lector indicado y la carga en el algoritmo.
+     *
+     * @param lector Origen de las líneas de la gramática.
+     * @param algoritmo Algoritmo donde se carga la gramática.
+     * @throws IOException Si falla la lectura.
+     * @throws CYKAlgorithmException Si alguna línea no es válida.
+     */
+    public static void read(BufferedReader lector, CYKAlgorithmInterface algoritmo) throws IOException, CYKAlgorithmException {
+        ArrayList<Character> noTerminales = new ArrayList();
+        ArrayList<Character> terminales = new ArrayList();
+        ArrayList<Character> partesIzquierdas = new ArrayList();
+        ArrayList<String> partesDerechas = new ArrayList();
+        Character axioma = null;
+
+        String linea;
+        int numeroLinea = 0;
+        while ((linea = lector.readLine()) != null) {
+            numeroLinea++;
+            linea = linea.trim();
+            if (linea.isEmpty() || linea.startsWith("#")) {
+                continue;
+            }
+
+            if (linea.startsWith(PREFIJO_AXIOMA)) {
+                String simbolo = linea.substring(PREFIJO_AXIOMA.length()).trim();
+                if ((simbolo.length() != 1) || !Character.isUpperCase(simbolo.charAt(0))) {
+                    throw new CYKAlgorithmException("Línea " + numeroLinea + ": axioma no válido");
+                }
+                axioma = simbolo.charAt(0);
+                continue;
+            }
+
+            int separador = linea.indexOf(SEPARADOR);
+            if (separador != 1) {
+                throw new CYKAlgorithmException("Línea " + numeroLinea + ": se esperaba 'A::=...'");
+            }
+            char noTerminal = linea.charAt(0);
+            if (!Character.isUpperCase(noTerminal)) {
+                throw new CYKAlgorithmException("Línea " + numeroLinea + ": '" + noTerminal
+                        + "' no es un no terminal (letra mayúscula)");
+            }
+            anotarSimbolo(noTerminal, noTerminales, terminales);
+
+            for (String produccion : linea.substring(separador + SEPARADOR.length()).split("\\|", -1)) {
+                for (int indice = 0; indice < produccion.length(); indice++) {
+                    char simbolo = produccion.charAt(indice);
+                    if (!Character.isUpperCase(simbolo) && !Character.isLowerCase(simbolo)) {
+                        throw new CYKAlgorithmException("Línea " + numeroLinea + ": símbolo no válido '" + simbolo
+                                + "' en la producción '" + produccion + "'");
+                    }
+                    anotarSimbolo(simbolo, noTerminales, terminales);
+                }
+                boolean terminal = (produccion.length() == 1) && Character.isLowerCase(produccion.charAt(0));
+                boolean binaria = (produccion.length() == 2) && Character.isUpperCase(produccion.charAt(0))
+                        && Character.isUpperCase(produccion.charAt(1));
+                if (!terminal && !binaria) {
+                    throw new CYKAlgorithmException("Línea " + numeroLinea + ": la producción '" + produccion
+                            + "' no está en FNC (A::=BC o A::=a)");
+                }
+                partesIzquierdas.add(noTerminal);
+                partesDerechas.add(produccion);
+            }
+        }
+
+        if (partesIzquierdas.isEmpty()) {
+            throw new CYKAlgorithmException("La gramática no tiene producciones");
+        }
+
+        char inicial = (axioma != null) ? axioma : partesIzquierdas.get(0);
+        if (!(algoritmo instanceof CYKAlgorithm)) {
+            for (char noTerminal : noTerminales) {
+                algoritmo.addNonTerminal(noTerminal);
+            }
+            for (char terminal : terminales) {
+                algoritmo.addTerminal(terminal);
+            }
+            for (int indice = 0; indice < partesIzquierdas.size(); indice++) {
+                algoritmo.addProduction(partesIzquierdas.get(indice), partesDerechas.get(indice));
+            }
+            algoritmo.setStartSymbol(inicial);
+            return;
+        }
+
+        // Con un CYKAlgorithm los cambios se acumulan y se publica una sola
+        // versión, en lugar de una por producción.
+        CYKAlgorithm cyk = (CYKAlgorithm) algoritmo;
+        GrammarVersion.Builder cambios = cyk.edit();
+        for (char noTerminal : noTerminales) {
+            cambios.addNonTerminal(noTerminal);
+        }
+        for (char terminal : terminales) {
+            cambios.addTerminal(terminal);
+        }
+        for (int indice = 0; indice < partesIzquierdas.size(); indice++) {
+            cambios.addProduction(partesIzquierdas.get(indice), partesDerechas.get(indice));
+        }
+        cambios.setStartSymbol(inicial);
+        cyk.publish(cambios);
+    }
+
+    private static void anotarSimbolo(char simbolo, ArrayList<Character> noTerminales, ArrayList<Character> terminales) {
+        if (Character.isUpperCase(simbolo)) {
+            if (!noTerminales.contains(simbolo)) {
+                noTerminales.add(simbolo);
+            }
+        } else if (!terminales.contains(simbolo)) {
+            terminales.add(simbolo);
+        }
+    }
+}
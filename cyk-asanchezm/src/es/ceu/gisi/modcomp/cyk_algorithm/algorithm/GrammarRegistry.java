@@ -0,0 +1,124 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Registro de varias gramáticas con nombre que se compilan juntas en una única
+ * gramática con los no terminales disjuntos, de modo que una sola tabla de CYK
+ * indica a la vez a qué gramáticas pertenece una palabra.
+ *
+ * Cada gramática se registra como una instantánea de su estado en ese
+ * momento: los cambios posteriores en el CYKAlgorithm no afectan al registro
+ * hasta que se vuelve a registrar. El reconocimiento se puede usar desde
+ * varios hilos a la vez.
+ *
+ * @author Álvaro Sánchez Mateos
+ */
+public class GrammarRegistry {
+
+    private final LinkedHashMap<String, CompiledGrammar> gramaticas;
+    private volatile Fusion fusion;
+
+    public GrammarRegistry() {
+        this.gramaticas = new LinkedHashMap();
+        this.fusion = new Fusion(new ArrayList());
+    }
+
+    /**
+     * Registra la gramática con el nombre indicado, sustituyendo la que
+     * hubiera con ese nombre.
+     *
+     * @param nombre El nombre de la gramática.
+     * @param gramatica La gramática, con producciones y axioma.
+     * @throws CYKAlgorithmException Si la gramática no tiene producciones o no
+     * tiene axioma.
+     */
+    public synchronized void register(String nombre, CYKAlgorithm gramatica) throws CYKAlgorithmException {
+        CompiledGrammar compilada = gramatica.getCompiledGrammar();
+        if ((compilada.axioma < 0) || !compilada.hasProductions()) {
+            throw new CYKAlgorithmException();
+        }
+        this.gramaticas.put(nombre, compilada);
+        this.fusion = new Fusion(new ArrayList(this.gramaticas.entrySet()));
+    }
+
+    /**
+     * Elimina la gramática con el nombre indicado.
+     *
+     * @param nombre El nombre de la gramática.
+     * @return TRUE si estaba registrada.
+     */
+    public synchronized boolean unregister(String nombre) {
+        if (this.gramaticas.remove(nombre) == null) {
+            return false;
+        }
+        this.fusion = new Fusion(new ArrayList(this.gramaticas.entrySet()));
+        return true;
+    }
+
+    /**
+     * @return Los nombres de las gramáticas registradas, en orden de registro.
+     */
+    public Set<String> names() {
+        return new LinkedHashSet(List.of(this.fusion.nombres));
+    }
+
+    /**
+     * Comprueba la palabra contra todas las gramáticas registradas con una
+     * sola tabla de CYK.
+     *
+     * @param word La palabra a analizar.
+     * @return Los nombres de las gramáticas cuyo axioma deriva la palabra, en
+     * orden de registro.
+     * @throws CYKAlgorithmException Si la palabra contiene símbolos que no son
+     * terminales de ninguna gramática registrada.
+     */
+    public Set<String> matchingGrammars(String word) throws CYKAlgorithmException {
+        Fusion actual = this.fusion;
+        LinkedHashSet<String> resultado = new LinkedHashSet();
+        if (actual.nombres.length == 0) {
+            return resultado;
+        }
+        long[] casilla = actual.gramatica.topCell(actual.gramatica.tokens(word), null);
+        for (int indice = 0; indice < actual.nombres.length; indice++) {
+            int axioma = actual.axiomas[indice];
+            if ((casilla[axioma >>> 6] & (1L << axioma)) != 0) {
+                resultado.add(actual.nombres[indice]);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Gramática unida junto con el nombre y el índice del axioma de cada
+     * gramática original. Es inmutable: cada cambio del registro crea una
+     * nueva.
+     */
+    private static final class Fusion {
+
+        final String[] nombres;
+        final int[] axiomas;
+        final CompiledGrammar gramatica;
+
+        Fusion(List<Map.Entry<String, CompiledGrammar>> entradas) {
+            this.nombres = new String[entradas.size()];
+            this.axiomas = new int[entradas.size()];
+            ArrayList<CompiledGrammar> compiladas = new ArrayList();
+            int desplazamiento = 0;
+            for (int indice = 0; indice < entradas.size(); indice++) {
+                CompiledGrammar compilada = entradas.get(indice).getValue();
+                this.nombres[indice] = entradas.get(indice).getKey();
+                this.axiomas[indice] = compilada.axioma + desplazamiento;
+                compiladas.add(compilada);
+                desplazamiento += compilada.noTerminales.length;
+            }
+            this.gramatica = CompiledGrammar.merge(compiladas);
+        }
+    }
+}
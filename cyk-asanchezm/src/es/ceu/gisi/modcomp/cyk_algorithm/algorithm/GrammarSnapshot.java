@@ -0,0 +1,99 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Copia binaria de una versión de la gramática, para enviarla a otro
+ * proceso. A diferencia de GrammarFile conserva exactamente los no
+ * terminales y terminales declarados (aunque no aparezcan en ninguna
+ * producción) y su orden, así que al leerla y compilarla se obtiene la misma
+ * gramática compilada, con los mismos identificadores de token.
+ *
+ * Formato: número de no terminales y sus caracteres, lo mismo para los
+ * terminales, si hay axioma y cuál es, y para cada no terminal con
+ * producciones, el no terminal, cuántas tiene y cada una en UTF.
+ *
+ * @author Álvaro Sánchez Mateos
+ */
+public final class GrammarSnapshot {
+
+    private GrammarSnapshot() {
+    }
+
+    /**
+     * Escribe la versión actual de la gramática.
+     *
+     * @param gramatica La gramática.
+     * @param salida Donde se escribe la copia.
+     * @throws IOException Si falla la escritura.
+     */
+    public static void write(CYKAlgorithm gramatica, DataOutput salida) throws IOException {
+        GrammarVersion version = gramatica.currentVersion();
+
+        salida.writeInt(version.noTerminales.size());
+        for (char noTerminal : version.noTerminales) {
+            salida.writeChar(noTerminal);
+        }
+        salida.writeInt(version.terminales.size());
+        for (char terminal : version.terminales) {
+            salida.writeChar(terminal);
+        }
+        salida.writeBoolean(version.axioma != null);
+        if (version.axioma != null) {
+            salida.writeChar(version.axioma);
+        }
+        salida.writeInt(version.producciones.size());
+        for (char noTerminal : version.noTerminales) {
+            List<String> producciones = version.producciones.get(noTerminal);
+            if (producciones != null) {
+                salida.writeChar(noTerminal);
+                salida.writeInt(producciones.size());
+                for (String produccion : producciones) {
+                    salida.writeUTF(produccion);
+                }
+            }
+        }
+    }
+
+    /**
+     * Lee una copia escrita con write y construye con ella un algoritmo
+     * nuevo.
+     *
+     * @param entrada De donde se lee la copia.
+     * @return Un algoritmo con la misma gramática.
+     * @throws IOException Si falla la lectura.
+     * @throws CYKAlgorithmException Si la copia no contiene una gramática
+     * válida.
+     */
+    public static CYKAlgorithm read(DataInput entrada) throws IOException, CYKAlgorithmException {
+        CYKAlgorithm gramatica = new CYKAlgorithm();
+        GrammarVersion.Builder cambios = gramatica.edit();
+
+        int numNoTerminales = entrada.readInt();
+        for (int indice = 0; indice < numNoTerminales; indice++) {
+            cambios.addNonTerminal(entrada.readChar());
+        }
+        int numTerminales = entrada.readInt();
+        for (int indice = 0; indice < numTerminales; indice++) {
+            cambios.addTerminal(entrada.readChar());
+        }
+        Character axioma = entrada.readBoolean() ? entrada.readChar() : null;
+        int conProducciones = entrada.readInt();
+        for (int indice = 0; indice < conProducciones; indice++) {
+            char noTerminal = entrada.readChar();
+            int numProducciones = entrada.readInt();
+            for (int produccion = 0; produccion < numProducciones; produccion++) {
+                cambios.addProduction(noTerminal, entrada.readUTF());
+            }
+        }
+        if (axioma != null) {
+            cambios.setStartSymbol(axioma);
+        }
+        gramatica.publish(cambios);
+        return gramatica;
+    }
+}
@@ -0,0 +1,235 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versión inmutable de una gramática: sus terminales, no terminales, axioma y
+ * producciones en un momento dado. CYKAlgorithm nunca modifica una versión
+ * publicada; cada cambio crea otra nueva (copiando sólo la lista o el mapa
+ * que cambia y compartiendo el resto) y la publica de forma atómica, de modo
+ * que un análisis que ya ha empezado termina con la versión con la que
+ * empezó. Como cada cambio copia el mapa de producciones, para cargar una
+ * gramática entera se usa un Builder, que acumula los cambios sobre
+ * colecciones mutables y crea una sola versión al final.
+ *
+ * La gramática compilada se calcula la primera vez que se pide y se guarda en
+ * la propia versión. Si varios hilos la piden a la vez, sólo uno la compila y
+ * los demás esperan a que termine; una vez compilada se lee sin cerrojos.
+ *
+ * @author Álvaro Sánchez Mateos
+ */
+final class GrammarVersion {
+
+    private static final AtomicLong SECUENCIA = new AtomicLong();
+
+    final long numero;
+    final List<Character> noTerminales;
+    final List<Character> terminales;
+    final Character axioma;
+    final Map<Character, List<String>> producciones;
+    private volatile CompiledGrammar compilada;
+
+    private GrammarVersion(List<Character> noTerminales, List<Character> terminales, Character axioma,
+            Map<Character, List<String>> producciones) {
+        this.numero = SECUENCIA.incrementAndGet();
+        this.noTerminales = noTerminales;
+        this.terminales = terminales;
+        this.axioma = axioma;
+        this.producciones = producciones;
+    }
+
+    /**
+     * @return Una versión nueva sin ningún elemento.
+     */
+    static GrammarVersion empty() {
+        return new GrammarVersion(Collections.emptyList(), Collections.emptyList(), null, Collections.emptyMap());
+    }
+
+    GrammarVersion withNonTerminal(char noTerminal) {
+        return new GrammarVersion(anadir(this.noTerminales, noTerminal), this.terminales, this.axioma,
+                this.producciones);
+    }
+
+    GrammarVersion withTerminal(char terminal) {
+        return new GrammarVersion(this.noTerminales, anadir(this.terminales, terminal), this.axioma,
+                this.producciones);
+    }
+
+    GrammarVersion withStartSymbol(char noTerminal) {
+        return new GrammarVersion(this.noTerminales, this.terminales, noTerminal, this.producciones);
+    }
+
+    GrammarVersion withProduction(char noTerminal, String produccion) {
+        TreeMap<Character, List<String>> nuevas = new TreeMap(this.producciones);
+        List<String> anteriores = this.producciones.get(noTerminal);
+        nuevas.put(noTerminal, anadir((anteriores != null) ? anteriores : Collections.emptyList(), produccion));
+        return new GrammarVersion(this.noTerminales, this.terminales, this.axioma,
+                Collections.unmodifiableMap(nuevas));
+    }
+
+    /**
+     * Comprueba que se puede añadir el no terminal.
+     *
+     * @throws CYKAlgorithmException Si no es una letra mayúscula o ya está.
+     */
+    static void checkNonTerminal(List<Character> noTerminales, char noTerminal) throws CYKAlgorithmException {
+        if ((!Character.isUpperCase(noTerminal)) || noTerminales.contains(noTerminal)) {
+            throw new CYKAlgorithmException();
+        }
+    }
+
+    /**
+     * Comprueba que se puede añadir el terminal.
+     *
+     * @throws CYKAlgorithmException Si no es una letra minúscula o ya está.
+     */
+    static void checkTerminal(List<Character> terminales, char terminal) throws CYKAlgorithmException {
+        if ((!Character.isLowerCase(terminal)) || terminales.contains(terminal)) {
+            throw new CYKAlgorithmException();
+        }
+    }
+
+    /**
+     * Comprueba que el no terminal puede ser el axioma.
+     *
+     * @throws CYKAlgorithmException Si no es uno de los no terminales.
+     */
+    static void checkStartSymbol(List<Character> noTerminales, char noTerminal) throws CYKAlgorithmException {
+        if (!noTerminales.contains(noTerminal)) {
+            throw new CYKAlgorithmException();
+        }
+    }
+
+    /**
+     * Comprueba que la producción está en FNC, que sus símbolos están
+     * declarados y que no es una de las anteriores del mismo no terminal.
+     *
+     * @param anteriores Las producciones del no terminal, o null si no tiene.
+     * @throws CYKAlgorithmException Si la producción no es válida.
+     */
+    static void checkProduction(List<Character> noTerminales, List<Character> terminales, List<String> anteriores,
+            char noTerminal, String produccion) throws CYKAlgorithmException {
+        if (!noTerminales.contains(noTerminal)) {
+            throw new CYKAlgorithmException();
+        }
+        if (produccion.length() == 1) {
+
+            if (!terminales.contains(produccion.charAt(0))) {
+                throw new CYKAlgorithmException();
+            }
+
+        } else if (produccion.length() == 2) {
+
+            char letra1 = produccion.charAt(0);
+            char letra2 = produccion.charAt(1);
+            if ((!noTerminales.contains(letra1)) || (!noTerminales.contains(letra2))) {
+                throw new CYKAlgorithmException();
+            }
+
+        } else {
+            throw new CYKAlgorithmException();
+        }
+
+        if (anteriores != null) {
+            for (String anterior : anteriores) {
+                if (anterior == produccion) {
+                    throw new CYKAlgorithmException();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return La gramática compilada de esta versión.
+     */
+    CompiledGrammar compiled() {
+        CompiledGrammar resultado = this.compilada;
+        if (resultado == null) {
+            synchronized (this) {
+                resultado = this.compilada;
+                if (resultado == null) {
+                    resultado = CompiledGrammar.compile(this.noTerminales, this.terminales, this.axioma,
+                            this.producciones);
+                    this.compilada = resultado;
+                }
+            }
+        }
+        return resultado;
+    }
+
+    private static <T> List<T> anadir(List<T> lista, T elemento) {
+        ArrayList<T> nueva = new ArrayList(lista.size() + 1);
+        nueva.addAll(lista);
+        nueva.add(elemento);
+        return Collections.unmodifiableList(nueva);
+    }
+
+    /**
+     * Acumula cambios sobre una versión con listas y mapas mutables y crea
+     * con ellos una sola versión nueva, con las mismas comprobaciones que los
+     * métodos de CYKAlgorithm. Así cargar una gramática de P producciones
+     * cuesta O(P) en lugar de copiar el mapa de producciones P veces.
+     */
+    static final class Builder {
+
+        private final ArrayList<Character> noTerminales;
+        private final ArrayList<Character> terminales;
+        private Character axioma;
+        private final TreeMap<Character, ArrayList<String>> producciones;
+
+        Builder(GrammarVersion base) {
+            this.noTerminales = new ArrayList(base.noTerminales);
+            this.terminales = new ArrayList(base.terminales);
+            this.axioma = base.axioma;
+            this.producciones = new TreeMap();
+            for (Map.Entry<Character, List<String>> entrada : base.producciones.entrySet()) {
+                this.producciones.put(entrada.getKey(), new ArrayList(entrada.getValue()));
+            }
+        }
+
+        void addNonTerminal(char noTerminal) throws CYKAlgorithmException {
+            checkNonTerminal(this.noTerminales, noTerminal);
+            this.noTerminales.add(noTerminal);
+        }
+
+        void addTerminal(char terminal) throws CYKAlgorithmException {
+            checkTerminal(this.terminales, terminal);
+            this.terminales.add(terminal);
+        }
+
+        void setStartSymbol(char noTerminal) throws CYKAlgorithmException {
+            checkStartSymbol(this.noTerminales, noTerminal);
+            this.axioma = noTerminal;
+        }
+
+        void addProduction(char noTerminal, String produccion) throws CYKAlgorithmException {
+            ArrayList<String> anteriores = this.producciones.get(noTerminal);
+            checkProduction(this.noTerminales, this.terminales, anteriores, noTerminal, produccion);
+            if (anteriores == null) {
+                anteriores = new ArrayList();
+                this.producciones.put(noTerminal, anteriores);
+            }
+            anteriores.add(produccion);
+        }
+
+        /**
+         * @return Una versión nueva con los cambios acumulados. El Builder se
+         * puede seguir usando sin afectarla.
+         */
+        GrammarVersion build() {
+            TreeMap<Character, List<String>> copia = new TreeMap();
+            for (Map.Entry<Character, ArrayList<String>> entrada : this.producciones.entrySet()) {
+                copia.put(entrada.getKey(), Collections.unmodifiableList(new ArrayList(entrada.getValue())));
+            }
+            return new GrammarVersion(Collections.unmodifiableList(new ArrayList(this.noTerminales)),
+                    Collections.unmodifiableList(new ArrayList(this.terminales)), this.axioma,
+                    Collections.unmodifiableMap(copia));
+        }
+    }
+}
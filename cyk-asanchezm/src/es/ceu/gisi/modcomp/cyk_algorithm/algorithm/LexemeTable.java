@@ -0,0 +1,133 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Tokenizador de lexemas separados por espacios en blanco, cada uno asociado
+ * a un terminal de la gramática. Los lexemas se guardan en una tabla hash de
+ * direccionamiento abierto (sondeo lineal, ocupación máxima de la mitad)
+ * construida una sola vez: el hash se calcula directamente sobre los
+ * caracteres del texto y las claves se comparan carácter a carácter, así que
+ * al tokenizar no se crea ningún String ni se hace boxing.
+ *
+ * Los identificadores se resuelven con la gramática compilada en el momento
+ * de construir la tabla; si después se cambia el orden o el conjunto de
+ * terminales, hay que construirla de nuevo. Es inmutable y se puede usar
+ * desde varios hilos a la vez.
+ *
+ * @author Álvaro Sánchez Mateos
+ */
+public final class LexemeTable implements Tokenizer {
+
+    private final char[][] claves;
+    private final int[] identificadores;
+    private final int mascara;
+
+    /**
+     * @param gramatica La gramática cuyos terminales se usan.
+     * @param lexemas El terminal de cada lexema. Varios lexemas pueden
+     * corresponder al mismo terminal.
+     * @throws CYKAlgorithmException Si algún lexema está vacío o contiene
+     * espacios, o si su terminal no pertenece a la gramática.
+     */
+    public LexemeTable(CYKAlgorithm gramatica, Map<String, Character> lexemas) throws CYKAlgorithmException {
+        CompiledGrammar compilada = gramatica.getCompiledGrammar();
+        int tamano = Integer.highestOneBit(Math.max(1, lexemas.size()) * 2) * 2;
+        this.claves = new char[tamano][];
+        this.identificadores = new int[tamano];
+        this.mascara = tamano - 1;
+
+        for (Map.Entry<String, Character> entrada : lexemas.entrySet()) {
+            String lexema = entrada.getKey();
+            int identificador = compilada.terminalIndex(entrada.getValue());
+            if (lexema.isEmpty() || (identificador < 0)) {
+                throw new CYKAlgorithmException();
+            }
+            for (int indice = 0; indice < lexema.length(); indice++) {
+                if (Character.isWhitespace(lexema.charAt(indice))) {
+                    throw new CYKAlgorithmException();
+                }
+            }
+            int posicion = hueco(lexema, 0, lexema.length());
+            this.claves[posicion] = lexema.toCharArray();
+            this.identificadores[posicion] = identificador;
+        }
+    }
+
+    /**
+     * @param texto Un texto cualquiera.
+     * @param inicio Posición del primer carácter del lexema.
+     * @param fin Posición siguiente al último carácter del lexema.
+     * @return El identificador del lexema texto[inicio, fin), o -1 si no está
+     * en la tabla.
+     */
+    public int lookup(CharSequence texto, int inicio, int fin) {
+        int posicion = hueco(texto, inicio, fin);
+        return (this.claves[posicion] != null) ? this.identificadores[posicion] : -1;
+    }
+
+    /**
+     * Separa el texto en lexemas por los espacios en blanco y traduce cada uno
+     * con la tabla.
+     *
+     * @param texto El texto a traducir.
+     * @return El identificador de cada lexema.
+     * @throws CYKAlgorithmException Si algún lexema no está en la tabla.
+     */
+    @Override
+    public int[] tokenize(CharSequence texto) throws CYKAlgorithmException {
+        int[] resultado = new int[16];
+        int numTokens = 0;
+        int longitud = texto.length();
+        int indice = 0;
+        while (indice < longitud) {
+            if (Character.isWhitespace(texto.charAt(indice))) {
+                indice++;
+                continue;
+            }
+            int inicio = indice;
+            while ((indice < longitud) && !Character.isWhitespace(texto.charAt(indice))) {
+                indice++;
+            }
+            int identificador = lookup(texto, inicio, indice);
+            if (identificador < 0) {
+                throw new CYKAlgorithmException();
+            }
+            if (numTokens == resultado.length) {
+                resultado = Arrays.copyOf(resultado, numTokens * 2);
+            }
+            resultado[numTokens++] = identificador;
+        }
+        return Arrays.copyOf(resultado, numTokens);
+    }
+
+    /**
+     * @return La posición de la tabla que ocupa el lexema texto[inicio, fin),
+     * o el hueco libre donde iría si no está.
+     */
+    private int hueco(CharSequence texto, int inicio, int fin) {
+        int hash = 0;
+        for (int indice = inicio; indice < fin; indice++) {
+            hash = 31 * hash + texto.charAt(indice);
+        }
+        int posicion = (hash ^ (hash >>> 16)) & this.mascara;
+        while ((this.claves[posicion] != null) && !iguales(this.claves[posicion], texto, inicio, fin)) {
+            posicion = (posicion + 1) & this.mascara;
+        }
+        return posicion;
+    }
+
+    private static boolean iguales(char[] clave, CharSequence texto, int inicio, int fin) {
+        if (clave.length != fin - inicio) {
+            return false;
+        }
+        for (int indice = 0; indice < clave.length; indice++) {
+            if (clave[indice] != texto.charAt(inicio + indice)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
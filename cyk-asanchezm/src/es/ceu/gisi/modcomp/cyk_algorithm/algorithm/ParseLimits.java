@@ -0,0 +1,77 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm;
+
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Límites de un análisis con isDerived: un plazo, un presupuesto de
+ * operaciones (pares de casillas combinados) y una señal de cancelación. Es
+ * inmutable; cada método with devuelve una copia con el límite cambiado, a
+ * partir de NONE:
+ *
+ * <pre>
+ * ParseLimits.NONE.withTimeout(Duration.ofMillis(50)).withMaxOperations(1000000)
+ * </pre>
+ *
+ * El análisis comprueba los límites de forma cooperativa mientras rellena la
+ * tabla (también si se interrumpe el hilo), y si alguno se supera lanza
+ * ParseLimitExceededException.
+ *
+ * @author Álvaro Sánchez Mateos
+ */
+public final class ParseLimits {
+
+    /**
+     * Sin límites.
+     */
+    public static final ParseLimits NONE = new ParseLimits(0, false, Long.MAX_VALUE, null);
+
+    final long plazoNanos;
+    final boolean conPlazo;
+    final long maxOperaciones;
+    final BooleanSupplier cancelado;
+
+    private ParseLimits(long plazoNanos, boolean conPlazo, long maxOperaciones, BooleanSupplier cancelado) {
+        this.plazoNanos = plazoNanos;
+        this.conPlazo = conPlazo;
+        this.maxOperaciones = maxOperaciones;
+        this.cancelado = cancelado;
+    }
+
+    /**
+     * @param plazoNanos Instante límite, en la escala de System.nanoTime().
+     * @return Estos límites con ese plazo.
+     */
+    public ParseLimits withDeadline(long plazoNanos) {
+        return new ParseLimits(plazoNanos, true, this.maxOperaciones, this.cancelado);
+    }
+
+    /**
+     * @param tiempo Tiempo máximo, contado desde ahora.
+     * @return Estos límites con el plazo correspondiente.
+     */
+    public ParseLimits withTimeout(Duration tiempo) {
+        return withDeadline(System.nanoTime() + tiempo.toNanos());
+    }
+
+    /**
+     * @param maxOperaciones Número máximo de pares de casillas que se pueden
+     * combinar.
+     * @return Estos límites con ese presupuesto.
+     */
+    public ParseLimits withMaxOperations(long maxOperaciones) {
+        if (maxOperaciones < 0) {
+            throw new IllegalArgumentException("maxOperaciones negativo: " + maxOperaciones);
+        }
+        return new ParseLimits(this.plazoNanos, this.conPlazo, maxOperaciones, this.cancelado);
+    }
+
+    /**
+     * @param cancelado Se consulta durante el análisis; si devuelve TRUE el
+     * análisis se abandona.
+     * @return Estos límites con esa señal de cancelación.
+     */
+    public ParseLimits withCancellation(BooleanSupplier cancelado) {
+        return new ParseLimits(this.plazoNanos, this.conPlazo, this.maxOperaciones, cancelado);
+    }
+}
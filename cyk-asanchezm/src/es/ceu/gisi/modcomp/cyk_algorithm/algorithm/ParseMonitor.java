@@ -0,0 +1,95 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.ParseLimitExceededException;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.ParseLimitExceededException.Limit;
+
+/**
+ * Seguimiento de un análisis con límites: cuenta las casillas y operaciones
+ * que va haciendo CYKChart y comprueba los ParseLimits. El reloj y la
+ * cancelación sólo se consultan cada INTERVALO operaciones (cortes
+ * combinados), para que la comprobación no cueste más que el propio relleno.
+ * Se cuentan operaciones y no casillas porque una casilla de longitud l
+ * combina l-1 cortes: contando casillas, el trabajo entre dos consultas
+ * crecería con la longitud de la palabra. Así, entre dos consultas hay como
+ * mucho INTERVALO operaciones más las de una casilla.
+ *
+ * @author Álvaro Sánchez Mateos
+ */
+final class ParseMonitor {
+
+    private static final int INTERVALO = 1024;
+
+    private final ParseLimits limites;
+    private final int longitudPalabra;
+    private final long inicio;
+    private long casillas;
+    private long operaciones;
+    private int longitudCompletada;
+    private int hastaComprobar;
+
+    /**
+     * @param limites Los límites del análisis.
+     * @param longitudPalabra Longitud de la palabra analizada.
+     * @throws ParseLimitExceededException Si el plazo ya ha vencido o el
+     * análisis ya está cancelado.
+     */
+    ParseMonitor(ParseLimits limites, int longitudPalabra) throws ParseLimitExceededException {
+        this.limites = limites;
+        this.longitudPalabra = longitudPalabra;
+        this.inicio = System.nanoTime();
+        this.hastaComprobar = INTERVALO;
+        comprobar();
+    }
+
+    /**
+     * Anota una casilla que se va a calcular combinando tantos pares como
+     * cortes tiene.
+     *
+     * @param cortes Pares de casillas que se van a combinar.
+     * @throws ParseLimitExceededException Si se supera algún límite.
+     */
+    void cell(int cortes) throws ParseLimitExceededException {
+        if (this.operaciones + cortes > this.limites.maxOperaciones) {
+            throw fallo(Limit.BUDGET);
+        }
+        this.casillas++;
+        this.operaciones += cortes;
+        this.hastaComprobar -= cortes;
+        if (this.hastaComprobar <= 0) {
+            this.hastaComprobar = INTERVALO;
+            comprobar();
+        }
+    }
+
+    /**
+     * Anota que todas las casillas de la longitud indicada están calculadas.
+     */
+    void rowCompleted(int longitud) throws ParseLimitExceededException {
+        this.longitudCompletada = longitud;
+        comprobar();
+    }
+
+    /**
+     * Anota el final de una fila en una pasada posterior al relleno (el
+     * conteo de árboles): comprueba el plazo y la cancelación sin cambiar la
+     * longitud completada, que ya es la de la palabra.
+     */
+    void rowCounted() throws ParseLimitExceededException {
+        comprobar();
+    }
+
+    private void comprobar() throws ParseLimitExceededException {
+        if (Thread.currentThread().isInterrupted()
+                || ((this.limites.cancelado != null) && this.limites.cancelado.getAsBoolean())) {
+            throw fallo(Limit.CANCELLED);
+        }
+        if (this.limites.conPlazo && (System.nanoTime() - this.limites.plazoNanos >= 0)) {
+            throw fallo(Limit.DEADLINE);
+        }
+    }
+
+    private ParseLimitExceededException fallo(Limit limite) {
+        return new ParseLimitExceededException(limite, this.longitudPalabra, this.longitudCompletada, this.casillas,
+                this.operaciones, System.nanoTime() - this.inicio);
+    }
+}
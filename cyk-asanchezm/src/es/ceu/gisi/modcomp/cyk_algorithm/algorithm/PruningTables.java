@@ -0,0 +1,417 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Tablas de poda calculadas al compilar la gramática. Para cada no terminal X
+ * se guarda:
+ *
+ * <ul>
+ * <li>si es útil (productivo y alcanzable desde el axioma);</li>
+ * <li>la longitud mínima y máxima de las palabras que deriva;</li>
+ * <li>los terminales con los que pueden empezar y acabar (FIRST y LAST);</li>
+ * <li>cuántos símbolos, como mínimo y como máximo, pueden quedar a su
+ * izquierda y a su derecha en una derivación desde el axioma.</li>
+ * </ul>
+ *
+ * Además, para el lenguaje del axioma, qué terminales pueden empezar y acabar
+ * una palabra y qué pares de terminales pueden aparecer seguidos; con ellos
+ * prefilter descarta en tiempo lineal muchas palabras antes de rellenar la
+ * tabla.
+ *
+ * Son condiciones necesarias para que X aparezca en la casilla (i, longitud)
+ * de un árbol de derivación completo de la palabra, así que quitar de la
+ * tabla los no terminales que no las cumplen no cambia el resultado de
+ * isDerived, pero evita combinar pares que nunca llegarían al axioma.
+ *
+ * @author Álvaro Sánchez Mateos
+ */
+final class PruningTables {
+
+    static final int INFINITO = Integer.MAX_VALUE;
+
+    final boolean[] productivo;
+    final long[] utiles;
+    final int[] longitudMinima;
+    final int[] longitudMaxima;
+    final int[] izquierdaMinima;
+    final int[] izquierdaMaxima;
+    final int[] derechaMinima;
+    final int[] derechaMaxima;
+    final long[] conPrimero;
+    final long[] conUltimo;
+    final long[] cabezasPorIzquierda;
+    final boolean[] adyacentes;
+
+    private final int palabras;
+    private final int numTerminales;
+    private final int axioma;
+
+    /**
+     * @param gramatica Gramática compilada con axioma.
+     */
+    PruningTables(CompiledGrammar gramatica) {
+        int numNoTerminales = gramatica.noTerminales.length;
+        int numTerminales = gramatica.terminales.length;
+        int numReglas = gramatica.reglaCabeza.length;
+        int[] cabeza = gramatica.reglaCabeza;
+        int[] izquierda = gramatica.reglaIzquierda;
+        int[] derecha = gramatica.reglaDerecha;
+        this.palabras = gramatica.palabras;
+        this.numTerminales = numTerminales;
+        this.axioma = gramatica.axioma;
+
+        // Longitud mínima; los no terminales productivos son los que la tienen.
+        this.longitudMinima = new int[numNoTerminales];
+        Arrays.fill(this.longitudMinima, INFINITO);
+        for (int[] cabezas : gramatica.unarias) {
+            for (int noTerminal : cabezas) {
+                this.longitudMinima[noTerminal] = 1;
+            }
+        }
+        boolean cambio = true;
+        while (cambio) {
+            cambio = false;
+            for (int regla = 0; regla < numReglas; regla++) {
+                int longitud = sumar(this.longitudMinima[izquierda[regla]], this.longitudMinima[derecha[regla]]);
+                if (longitud < this.longitudMinima[cabeza[regla]]) {
+                    this.longitudMinima[cabeza[regla]] = longitud;
+                    cambio = true;
+                }
+            }
+        }
+        this.productivo = new boolean[numNoTerminales];
+        boolean[] reglaProductiva = new boolean[numReglas];
+        for (int noTerminal = 0; noTerminal < numNoTerminales; noTerminal++) {
+            this.productivo[noTerminal] = this.longitudMinima[noTerminal] < INFINITO;
+        }
+        for (int regla = 0; regla < numReglas; regla++) {
+            reglaProductiva[regla] = this.productivo[izquierda[regla]] && this.productivo[derecha[regla]];
+        }
+
+        // Alcanzables desde el axioma usando sólo reglas productivas.
+        boolean[] util = new boolean[numNoTerminales];
+        if (this.productivo[gramatica.axioma]) {
+            util[gramatica.axioma] = true;
+            cambio = true;
+            while (cambio) {
+                cambio = false;
+                for (int regla = 0; regla < numReglas; regla++) {
+                    if (reglaProductiva[regla] && util[cabeza[regla]]) {
+                        if (!util[izquierda[regla]] || !util[derecha[regla]]) {
+                            util[izquierda[regla]] = true;
+                            util[derecha[regla]] = true;
+                            cambio = true;
+                        }
+                    }
+                }
+            }
+        }
+        boolean[] reglaUtil = new boolean[numReglas];
+        for (int regla = 0; regla < numReglas; regla++) {
+            reglaUtil[regla] = reglaProductiva[regla] && util[cabeza[regla]];
+        }
+        this.utiles = new long[this.palabras];
+        for (int noTerminal = 0; noTerminal < numNoTerminales; noTerminal++) {
+            if (util[noTerminal]) {
+                this.utiles[noTerminal >>> 6] |= 1L << noTerminal;
+            }
+        }
+
+        this.longitudMaxima = longitudesMaximas(gramatica, reglaProductiva);
+
+        // FIRST y LAST de cada no terminal útil, guardados como "no terminales
+        // que pueden empezar (acabar) por cada terminal".
+        boolean[][] primero = new boolean[numNoTerminales][numTerminales];
+        boolean[][] ultimo = new boolean[numNoTerminales][numTerminales];
+        for (int terminal = 0; terminal < numTerminales; terminal++) {
+            for (int noTerminal : gramatica.unarias[terminal]) {
+                primero[noTerminal][terminal] = true;
+                ultimo[noTerminal][terminal] = true;
+            }
+        }
+        cambio = true;
+        while (cambio) {
+            cambio = false;
+            for (int regla = 0; regla < numReglas; regla++) {
+                if (!reglaUtil[regla]) {
+                    continue;
+                }
+                for (int terminal = 0; terminal < numTerminales; terminal++) {
+                    if (primero[izquierda[regla]][terminal] && !primero[cabeza[regla]][terminal]) {
+                        primero[cabeza[regla]][terminal] = true;
+                        cambio = true;
+                    }
+                    if (ultimo[derecha[regla]][terminal] && !ultimo[cabeza[regla]][terminal]) {
+                        ultimo[cabeza[regla]][terminal] = true;
+                        cambio = true;
+                    }
+                }
+            }
+        }
+        this.conPrimero = new long[numTerminales * this.palabras];
+        this.conUltimo = new long[numTerminales * this.palabras];
+        for (int noTerminal = 0; noTerminal < numNoTerminales; noTerminal++) {
+            for (int terminal = 0; terminal < numTerminales; terminal++) {
+                if (util[noTerminal] && primero[noTerminal][terminal]) {
+                    this.conPrimero[terminal * this.palabras + (noTerminal >>> 6)] |= 1L << noTerminal;
+                }
+                if (util[noTerminal] && ultimo[noTerminal][terminal]) {
+                    this.conUltimo[terminal * this.palabras + (noTerminal >>> 6)] |= 1L << noTerminal;
+                }
+            }
+        }
+
+        this.cabezasPorIzquierda = new long[numNoTerminales * this.palabras];
+        for (int regla = 0; regla < numReglas; regla++) {
+            if (reglaUtil[regla]) {
+                this.cabezasPorIzquierda[izquierda[regla] * this.palabras + (cabeza[regla] >>> 6)] |= 1L << cabeza[regla];
+            }
+        }
+
+        // Pares de terminales seguidos: en una palabra del lenguaje, dos
+        // símbolos contiguos t u se separan en algún nodo A::=BC útil con t
+        // al final de B y u al principio de C, y cualquier combinación así
+        // es posible porque B y C son productivos.
+        this.adyacentes = new boolean[numTerminales * numTerminales];
+        for (int regla = 0; regla < numReglas; regla++) {
+            if (!reglaUtil[regla]) {
+                continue;
+            }
+            for (int t = 0; t < numTerminales; t++) {
+                if (!ultimo[izquierda[regla]][t]) {
+                    continue;
+                }
+                for (int u = 0; u < numTerminales; u++) {
+                    if (primero[derecha[regla]][u]) {
+                        this.adyacentes[t * numTerminales + u] = true;
+                    }
+                }
+            }
+        }
+
+        // Contexto: símbolos a la izquierda y a la derecha de cada no terminal.
+        this.izquierdaMinima = new int[numNoTerminales];
+        this.izquierdaMaxima = new int[numNoTerminales];
+        this.derechaMinima = new int[numNoTerminales];
+        this.derechaMaxima = new int[numNoTerminales];
+        Arrays.fill(this.izquierdaMinima, INFINITO);
+        Arrays.fill(this.derechaMinima, INFINITO);
+        Arrays.fill(this.izquierdaMaxima, -1);
+        Arrays.fill(this.derechaMaxima, -1);
+        if (util[gramatica.axioma]) {
+            this.izquierdaMinima[gramatica.axioma] = 0;
+            this.derechaMinima[gramatica.axioma] = 0;
+            this.izquierdaMaxima[gramatica.axioma] = 0;
+            this.derechaMaxima[gramatica.axioma] = 0;
+        }
+        cambio = true;
+        while (cambio) {
+            cambio = false;
+            for (int regla = 0; regla < numReglas; regla++) {
+                if (!reglaUtil[regla]) {
+                    continue;
+                }
+                int padreIzquierda = this.izquierdaMinima[cabeza[regla]];
+                int padreDerecha = this.derechaMinima[cabeza[regla]];
+                cambio |= reducir(this.izquierdaMinima, izquierda[regla], padreIzquierda);
+                cambio |= reducir(this.izquierdaMinima, derecha[regla],
+                        sumar(padreIzquierda, this.longitudMinima[izquierda[regla]]));
+                cambio |= reducir(this.derechaMinima, derecha[regla], padreDerecha);
+                cambio |= reducir(this.derechaMinima, izquierda[regla],
+                        sumar(padreDerecha, this.longitudMinima[derecha[regla]]));
+            }
+        }
+        contextosMaximos(gramatica, reglaUtil);
+    }
+
+    /**
+     * Comprobación lineal de condiciones necesarias para que el axioma derive
+     * la palabra: su longitud está entre la mínima y la máxima del axioma, el
+     * primer símbolo está en FIRST del axioma, el último en LAST y cada par
+     * de símbolos seguidos puede aparecer así en alguna palabra del lenguaje.
+     *
+     * @param simbolos La palabra, como índices de terminal (no vacía).
+     * @return FALSE si la palabra seguro que no pertenece al lenguaje.
+     */
+    boolean prefilter(int[] simbolos) {
+        int n = simbolos.length;
+        int bloque = this.axioma >>> 6;
+        long bit = 1L << this.axioma;
+        if ((n < this.longitudMinima[this.axioma]) || (n > this.longitudMaxima[this.axioma])
+                || ((this.conPrimero[simbolos[0] * this.palabras + bloque] & bit) == 0)
+                || ((this.conUltimo[simbolos[n - 1] * this.palabras + bloque] & bit) == 0)) {
+            return false;
+        }
+        for (int indice = 1; indice < n; indice++) {
+            if (!this.adyacentes[simbolos[indice - 1] * this.numTerminales + simbolos[indice]]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Calcula la máscara de no terminales que pueden aparecer en la casilla
+     * (inicio, longitud) de una palabra de n símbolos.
+     *
+     * @param simbolos La palabra, como índices de terminal.
+     * @param inicio Posición del primer símbolo de la subcadena.
+     * @param longitud Longitud de la subcadena.
+     * @param destino Donde se escribe la máscara (palabras longs).
+     * @return FALSE si la máscara queda vacía.
+     */
+    boolean candidates(int[] simbolos, int inicio, int longitud, long[] destino) {
+        int base = simbolos[inicio] * this.palabras;
+        int baseUltimo = simbolos[inicio + longitud - 1] * this.palabras;
+        int derecha = simbolos.length - inicio - longitud;
+        boolean alguno = false;
+        for (int palabra = 0; palabra < this.palabras; palabra++) {
+            long mascara = this.utiles[palabra] & this.conPrimero[base + palabra] & this.conUltimo[baseUltimo + palabra];
+            for (long resto = mascara; resto != 0; resto &= resto - 1) {
+                int noTerminal = (palabra << 6) + Long.numberOfTrailingZeros(resto);
+                if ((longitud < this.longitudMinima[noTerminal]) || (longitud > this.longitudMaxima[noTerminal])
+                        || (inicio < this.izquierdaMinima[noTerminal]) || (inicio > this.izquierdaMaxima[noTerminal])
+                        || (derecha < this.derechaMinima[noTerminal]) || (derecha > this.derechaMaxima[noTerminal])) {
+                    mascara &= ~(1L << noTerminal);
+                }
+            }
+            destino[palabra] = mascara;
+            alguno |= mascara != 0;
+        }
+        return alguno;
+    }
+
+    /**
+     * Longitud máxima de lo que deriva cada no terminal productivo, o
+     * INFINITO si puede alcanzar un ciclo (y entonces derivar palabras tan
+     * largas como se quiera).
+     */
+    private int[] longitudesMaximas(CompiledGrammar gramatica, boolean[] reglaProductiva) {
+        int numNoTerminales = gramatica.noTerminales.length;
+        int numReglas = gramatica.reglaCabeza.length;
+
+        ArrayList<Integer>[] hijos = new ArrayList[numNoTerminales];
+        for (int noTerminal = 0; noTerminal < numNoTerminales; noTerminal++) {
+            hijos[noTerminal] = new ArrayList();
+        }
+        for (int regla = 0; regla < numReglas; regla++) {
+            if (reglaProductiva[regla]) {
+                hijos[gramatica.reglaCabeza[regla]].add(gramatica.reglaIzquierda[regla]);
+                hijos[gramatica.reglaCabeza[regla]].add(gramatica.reglaDerecha[regla]);
+            }
+        }
+
+        // alcanza[A] contiene los no terminales que aparecen bajo A.
+        boolean[][] alcanza = new boolean[numNoTerminales][numNoTerminales];
+        for (int origen = 0; origen < numNoTerminales; origen++) {
+            ArrayDeque<Integer> pendientes = new ArrayDeque();
+            pendientes.push(origen);
+            while (!pendientes.isEmpty()) {
+                for (int hijo : hijos[pendientes.pop()]) {
+                    if (!alcanza[origen][hijo]) {
+                        alcanza[origen][hijo] = true;
+                        pendientes.push(hijo);
+                    }
+                }
+            }
+        }
+
+        int[] maxima = new int[numNoTerminales];
+        for (int noTerminal = 0; noTerminal < numNoTerminales; noTerminal++) {
+            if (!this.productivo[noTerminal]) {
+                maxima[noTerminal] = -1;
+                continue;
+            }
+            for (int otro = 0; otro < numNoTerminales; otro++) {
+                if (alcanza[noTerminal][otro] && alcanza[otro][otro]) {
+                    maxima[noTerminal] = INFINITO;
+                    break;
+                }
+            }
+        }
+
+        // El resto deriva un lenguaje finito; sus dependencias forman un
+        // grafo acíclico y basta con iterar hasta que no haya cambios.
+        boolean cambio = true;
+        while (cambio) {
+            cambio = false;
+            for (int regla = 0; regla < numReglas; regla++) {
+                int cabeza = gramatica.reglaCabeza[regla];
+                if (!reglaProductiva[regla] || (maxima[cabeza] == INFINITO)) {
+                    continue;
+                }
+                int longitud = sumar(maxima[gramatica.reglaIzquierda[regla]], maxima[gramatica.reglaDerecha[regla]]);
+                if (longitud > maxima[cabeza]) {
+                    maxima[cabeza] = longitud;
+                    cambio = true;
+                }
+            }
+            for (int[] cabezas : gramatica.unarias) {
+                for (int cabeza : cabezas) {
+                    if (maxima[cabeza] < 1) {
+                        maxima[cabeza] = 1;
+                        cambio = true;
+                    }
+                }
+            }
+        }
+        return maxima;
+    }
+
+    /**
+     * Contexto máximo a izquierda y derecha: caminos más largos desde el
+     * axioma. Si tras tantas rondas como no terminales un valor sigue
+     * creciendo, está en (o después de) un ciclo que aumenta el contexto y
+     * pasa a ser INFINITO.
+     */
+    private void contextosMaximos(CompiledGrammar gramatica, boolean[] reglaUtil) {
+        int numNoTerminales = gramatica.noTerminales.length;
+        int numReglas = gramatica.reglaCabeza.length;
+        int[] cabeza = gramatica.reglaCabeza;
+        int[] izquierda = gramatica.reglaIzquierda;
+        int[] derecha = gramatica.reglaDerecha;
+
+        boolean cambio = true;
+        for (int ronda = 0; cambio; ronda++) {
+            boolean saturar = ronda > numNoTerminales;
+            cambio = false;
+            for (int regla = 0; regla < numReglas; regla++) {
+                if (!reglaUtil[regla] || (this.izquierdaMaxima[cabeza[regla]] < 0)) {
+                    continue;
+                }
+                int padreIzquierda = this.izquierdaMaxima[cabeza[regla]];
+                int padreDerecha = this.derechaMaxima[cabeza[regla]];
+                cambio |= ampliar(this.izquierdaMaxima, izquierda[regla], padreIzquierda, saturar);
+                cambio |= ampliar(this.izquierdaMaxima, derecha[regla],
+                        sumar(padreIzquierda, this.longitudMaxima[izquierda[regla]]), saturar);
+                cambio |= ampliar(this.derechaMaxima, derecha[regla], padreDerecha, saturar);
+                cambio |= ampliar(this.derechaMaxima, izquierda[regla],
+                        sumar(padreDerecha, this.longitudMaxima[derecha[regla]]), saturar);
+            }
+        }
+    }
+
+    private static boolean reducir(int[] valores, int posicion, int candidato) {
+        if (candidato < valores[posicion]) {
+            valores[posicion] = candidato;
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean ampliar(int[] valores, int posicion, int candidato, boolean saturar) {
+        if (candidato > valores[posicion]) {
+            valores[posicion] = saturar ? INFINITO : candidato;
+            return true;
+        }
+        return false;
+    }
+
+    private static int sumar(int primero, int segundo) {
+        long suma = (long) primero + segundo;
+        return (suma >= INFINITO) ? INFINITO : (int) suma;
+    }
+}
@@ -0,0 +1,21 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm;
+
+/**
+ * Motor con el que CYKAlgorithm reconoce las palabras de la gramática
+ * cargada.
+ *
+ * @author Álvaro Sánchez Mateos
+ */
+public enum RecognitionEngine {
+
+    /**
+     * Algoritmo CYK: tabla triangular, coste cúbico en la longitud de la
+     * palabra.
+     */
+    CYK,
+    /**
+     * Autómata finito determinista mínimo: coste lineal en la longitud de la
+     * palabra. Sólo se usa si el lenguaje de la gramática es regular.
+     */
+    DFA
+}
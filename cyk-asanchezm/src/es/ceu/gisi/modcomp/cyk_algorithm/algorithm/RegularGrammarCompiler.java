@@ -0,0 +1,434 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+
+/**
+ * Detecta si una gramática compilada genera un lenguaje regular y, en ese
+ * caso, construye su DFA mínimo.
+ *
+ * La detección es conservadora: se calculan las componentes fuertemente
+ * conexas del grafo de dependencias entre no terminales útiles y se exige que
+ * cada componente recursiva sea lineal por la derecha (en toda regla A::=BC de
+ * la componente sólo C puede pertenecer a ella) o lineal por la izquierda
+ * (sólo B). Una gramática así no tiene autoincrustación y su lenguaje es
+ * regular; las gramáticas sin recursión (lenguajes finitos) también entran.
+ * Si no se cumple, o si los autómatas superan un tamaño razonable, se
+ * devuelve null y se sigue usando CYK.
+ *
+ * @author Álvaro Sánchez Mateos
+ */
+final class RegularGrammarCompiler {
+
+    private static final int MAX_ESTADOS_NFA = 20000;
+    private static final int MAX_ESTADOS_DFA = 4096;
+
+    private static final int NO_RECURSIVA = 0;
+    private static final int DERECHA = 1;
+    private static final int IZQUIERDA = 2;
+
+    private final CompiledGrammar gramatica;
+    private final int[] componente;
+    private final int[] tipoComponente;
+    private final ArrayList<Integer>[] terminalesDe;
+    private final ArrayList<Integer>[] reglasDe;
+    private final ArrayList<Integer>[] miembros;
+    private final ArrayList<Integer>[] epsilon;
+    private final ArrayList<int[]>[] simbolos;
+    private int numEstadosNfa;
+
+    private RegularGrammarCompiler(CompiledGrammar gramatica, int[] componente, int[] tipoComponente,
+            ArrayList<Integer>[] terminalesDe, ArrayList<Integer>[] reglasDe, ArrayList<Integer>[] miembros) {
+        this.gramatica = gramatica;
+        this.componente = componente;
+        this.tipoComponente = tipoComponente;
+        this.terminalesDe = terminalesDe;
+        this.reglasDe = reglasDe;
+        this.miembros = miembros;
+        this.epsilon = new ArrayList[MAX_ESTADOS_NFA];
+        this.simbolos = new ArrayList[MAX_ESTADOS_NFA];
+        this.numEstadosNfa = 0;
+    }
+
+    /**
+     * @param gramatica La gramática compilada, con axioma.
+     * @return El DFA mínimo de su lenguaje, o null si no se ha podido
+     * demostrar que es regular.
+     */
+    static Dfa compile(CompiledGrammar gramatica) {
+        int numNoTerminales = gramatica.noTerminales.length;
+        int numReglas = gramatica.reglaCabeza.length;
+
+        boolean[] productivo = gramatica.poda.productivo;
+        if (!productivo[gramatica.axioma]) {
+            // Lenguaje vacío: un único estado que no acepta nada.
+            int[] transiciones = new int[gramatica.terminales.length];
+            Arrays.fill(transiciones, -1);
+            return new Dfa(1, gramatica.terminales.length, 0, transiciones, new boolean[1]);
+        }
+
+        ArrayList<Integer>[] reglasDe = new ArrayList[numNoTerminales];
+        ArrayList<Integer>[] terminalesDe = new ArrayList[numNoTerminales];
+        for (int noTerminal = 0; noTerminal < numNoTerminales; noTerminal++) {
+            reglasDe[noTerminal] = new ArrayList();
+            terminalesDe[noTerminal] = new ArrayList();
+        }
+        for (int regla = 0; regla < numReglas; regla++) {
+            if (productivo[gramatica.reglaIzquierda[regla]] && productivo[gramatica.reglaDerecha[regla]]) {
+                reglasDe[gramatica.reglaCabeza[regla]].add(regla);
+            }
+        }
+        for (int terminal = 0; terminal < gramatica.unarias.length; terminal++) {
+            for (int cabeza : gramatica.unarias[terminal]) {
+                terminalesDe[cabeza].add(terminal);
+            }
+        }
+
+        int[] componente = componentesConexas(gramatica, reglasDe);
+        int numComponentes = 0;
+        for (int valor : componente) {
+            numComponentes = Math.max(numComponentes, valor + 1);
+        }
+        ArrayList<Integer>[] miembros = new ArrayList[numComponentes];
+        for (int indice = 0; indice < numComponentes; indice++) {
+            miembros[indice] = new ArrayList();
+        }
+        for (int noTerminal = 0; noTerminal < numNoTerminales; noTerminal++) {
+            if (componente[noTerminal] >= 0) {
+                miembros[componente[noTerminal]].add(noTerminal);
+            }
+        }
+
+        int[] tipoComponente = new int[numComponentes];
+        for (int noTerminal = 0; noTerminal < numNoTerminales; noTerminal++) {
+            int propia = componente[noTerminal];
+            if (propia < 0) {
+                continue;
+            }
+            for (int regla : reglasDe[noTerminal]) {
+                boolean izquierda = componente[gramatica.reglaIzquierda[regla]] == propia;
+                boolean derecha = componente[gramatica.reglaDerecha[regla]] == propia;
+                if (izquierda && derecha) {
+                    return null;
+                }
+                if (derecha) {
+                    if (tipoComponente[propia] == IZQUIERDA) {
+                        return null;
+                    }
+                    tipoComponente[propia] = DERECHA;
+                } else if (izquierda) {
+                    if (tipoComponente[propia] == DERECHA) {
+                        return null;
+                    }
+                    tipoComponente[propia] = IZQUIERDA;
+                }
+            }
+        }
+
+        RegularGrammarCompiler compilador = new RegularGrammarCompiler(gramatica, componente, tipoComponente,
+                terminalesDe, reglasDe, miembros);
+        try {
+            int inicio = compilador.nuevoEstado();
+            int fin = compilador.nuevoEstado();
+            compilador.construir(gramatica.axioma, inicio, fin);
+            return compilador.determinizar(inicio, fin);
+        } catch (AutomataDemasiadoGrande e) {
+            return null;
+        }
+    }
+
+    /**
+     * Componentes fuertemente conexas (Tarjan, iterativo) de los no
+     * terminales alcanzables desde el axioma por reglas productivas. Los no
+     * alcanzables quedan con componente -1.
+     */
+    private static int[] componentesConexas(CompiledGrammar gramatica, ArrayList<Integer>[] reglasDe) {
+        int numNoTerminales = gramatica.noTerminales.length;
+        int[] componente = new int[numNoTerminales];
+        int[] orden = new int[numNoTerminales];
+        int[] bajo = new int[numNoTerminales];
+        boolean[] enPila = new boolean[numNoTerminales];
+        Arrays.fill(componente, -1);
+        Arrays.fill(orden, -1);
+        ArrayDeque<Integer> pila = new ArrayDeque();
+        ArrayDeque<int[]> llamadas = new ArrayDeque();
+        int contador = 0;
+        int numComponentes = 0;
+
+        orden[gramatica.axioma] = bajo[gramatica.axioma] = contador++;
+        pila.push(gramatica.axioma);
+        enPila[gramatica.axioma] = true;
+        llamadas.push(new int[]{gramatica.axioma, 0});
+        while (!llamadas.isEmpty()) {
+            int[] marco = llamadas.peek();
+            int actual = marco[0];
+            ArrayList<Integer> reglas = reglasDe[actual];
+            if (marco[1] < 2 * reglas.size()) {
+                int regla = reglas.get(marco[1] / 2);
+                int hijo = (marco[1] % 2 == 0) ? gramatica.reglaIzquierda[regla] : gramatica.reglaDerecha[regla];
+                marco[1]++;
+                if (orden[hijo] < 0) {
+                    orden[hijo] = bajo[hijo] = contador++;
+                    pila.push(hijo);
+                    enPila[hijo] = true;
+                    llamadas.push(new int[]{hijo, 0});
+                } else if (enPila[hijo]) {
+                    bajo[actual] = Math.min(bajo[actual], orden[hijo]);
+                }
+                continue;
+            }
+
+            llamadas.pop();
+            if (!llamadas.isEmpty()) {
+                int padre = llamadas.peek()[0];
+                bajo[padre] = Math.min(bajo[padre], bajo[actual]);
+            }
+            if (bajo[actual] == orden[actual]) {
+                int miembro;
+                do {
+                    miembro = pila.pop();
+                    enPila[miembro] = false;
+                    componente[miembro] = numComponentes;
+                } while (miembro != actual);
+                numComponentes++;
+            }
+        }
+        return componente;
+    }
+
+    /**
+     * Añade al NFA los estados y transiciones necesarios para que los caminos
+     * de inicio a fin lean exactamente las palabras que deriva el no terminal.
+     * Cada uso de un no terminal crea una copia nueva de su fragmento.
+     */
+    private void construir(int noTerminal, int inicio, int fin) {
+        int propia = this.componente[noTerminal];
+        int tipo = this.tipoComponente[propia];
+
+        if (tipo == NO_RECURSIVA) {
+            for (int terminal : this.terminalesDe[noTerminal]) {
+                transicion(inicio, terminal, fin);
+            }
+            for (int regla : this.reglasDe[noTerminal]) {
+                int medio = nuevoEstado();
+                construir(this.gramatica.reglaIzquierda[regla], inicio, medio);
+                construir(this.gramatica.reglaDerecha[regla], medio, fin);
+            }
+            return;
+        }
+
+        // Un estado por cada no terminal de la componente. Por la derecha,
+        // desde el estado de Y quedan por leer palabras de L(Y); por la
+        // izquierda, al estado de Y se llega tras leer una palabra de L(Y).
+        ArrayList<Integer> componenteActual = this.miembros[propia];
+        HashMap<Integer, Integer> estadoDe = new HashMap();
+        for (int miembro : componenteActual) {
+            estadoDe.put(miembro, nuevoEstado());
+        }
+        if (tipo == DERECHA) {
+            this.epsilon(inicio, estadoDe.get(noTerminal));
+        } else {
+            this.epsilon(estadoDe.get(noTerminal), fin);
+        }
+
+        for (int miembro : componenteActual) {
+            int estado = estadoDe.get(miembro);
+            for (int terminal : this.terminalesDe[miembro]) {
+                if (tipo == DERECHA) {
+                    transicion(estado, terminal, fin);
+                } else {
+                    transicion(inicio, terminal, estado);
+                }
+            }
+            for (int regla : this.reglasDe[miembro]) {
+                int izquierda = this.gramatica.reglaIzquierda[regla];
+                int derecha = this.gramatica.reglaDerecha[regla];
+                if ((tipo == DERECHA) && (this.componente[derecha] == propia)) {
+                    construir(izquierda, estado, estadoDe.get(derecha));
+                } else if ((tipo == IZQUIERDA) && (this.componente[izquierda] == propia)) {
+                    construir(derecha, estadoDe.get(izquierda), estado);
+                } else {
+                    int medio = nuevoEstado();
+                    if (tipo == DERECHA) {
+                        construir(izquierda, estado, medio);
+                        construir(derecha, medio, fin);
+                    } else {
+                        construir(izquierda, inicio, medio);
+                        construir(derecha, medio, estado);
+                    }
+                }
+            }
+        }
+    }
+
+    private int nuevoEstado() {
+        if (this.numEstadosNfa == MAX_ESTADOS_NFA) {
+            throw new AutomataDemasiadoGrande();
+        }
+        this.epsilon[this.numEstadosNfa] = new ArrayList();
+        this.simbolos[this.numEstadosNfa] = new ArrayList();
+        return this.numEstadosNfa++;
+    }
+
+    private void epsilon(int origen, int destino) {
+        this.epsilon[origen].add(destino);
+    }
+
+    private void transicion(int origen, int terminal, int destino) {
+        this.simbolos[origen].add(new int[]{terminal, destino});
+    }
+
+    private BitSet cierre(BitSet estados) {
+        ArrayDeque<Integer> pendientes = new ArrayDeque();
+        for (int estado = estados.nextSetBit(0); estado >= 0; estado = estados.nextSetBit(estado + 1)) {
+            pendientes.push(estado);
+        }
+        while (!pendientes.isEmpty()) {
+            for (int destino : this.epsilon[pendientes.pop()]) {
+                if (!estados.get(destino)) {
+                    estados.set(destino);
+                    pendientes.push(destino);
+                }
+            }
+        }
+        return estados;
+    }
+
+    /**
+     * Construcción de subconjuntos seguida de minimización.
+     */
+    private Dfa determinizar(int inicio, int fin) {
+        int numSimbolos = this.gramatica.terminales.length;
+        HashMap<BitSet, Integer> indice = new HashMap();
+        ArrayList<BitSet> conjuntos = new ArrayList();
+        int[] transiciones = new int[16 * Math.max(1, numSimbolos)];
+
+        BitSet inicial = new BitSet();
+        inicial.set(inicio);
+        cierre(inicial);
+        indice.put(inicial, 0);
+        conjuntos.add(inicial);
+
+        for (int actual = 0; actual < conjuntos.size(); actual++) {
+            BitSet[] destinos = new BitSet[numSimbolos];
+            BitSet conjunto = conjuntos.get(actual);
+            for (int estado = conjunto.nextSetBit(0); estado >= 0; estado = conjunto.nextSetBit(estado + 1)) {
+                for (int[] transicion : this.simbolos[estado]) {
+                    if (destinos[transicion[0]] == null) {
+                        destinos[transicion[0]] = new BitSet();
+                    }
+                    destinos[transicion[0]].set(transicion[1]);
+                }
+            }
+            if ((actual + 1) * numSimbolos > transiciones.length) {
+                transiciones = Arrays.copyOf(transiciones, transiciones.length * 2);
+            }
+            for (int simbolo = 0; simbolo < numSimbolos; simbolo++) {
+                int destino = -1;
+                if (destinos[simbolo] != null) {
+                    BitSet siguiente = cierre(destinos[simbolo]);
+                    Integer conocido = indice.get(siguiente);
+                    if (conocido == null) {
+                        if (conjuntos.size() == MAX_ESTADOS_DFA) {
+                            throw new AutomataDemasiadoGrande();
+                        }
+                        conocido = conjuntos.size();
+                        indice.put(siguiente, conocido);
+                        conjuntos.add(siguiente);
+                    }
+                    destino = conocido;
+                }
+                transiciones[actual * numSimbolos + simbolo] = destino;
+            }
+        }
+
+        boolean[] finales = new boolean[conjuntos.size()];
+        for (int estado = 0; estado < finales.length; estado++) {
+            finales[estado] = conjuntos.get(estado).get(fin);
+        }
+        return minimizar(conjuntos.size(), numSimbolos, transiciones, finales);
+    }
+
+    /**
+     * Minimización por refinamiento de particiones (Moore). El sumidero se
+     * añade como un estado más y, al final, su clase vuelve a ser -1.
+     */
+    private static Dfa minimizar(int numEstados, int numSimbolos, int[] transiciones, boolean[] finales) {
+        int sumidero = numEstados;
+        int total = numEstados + 1;
+        int[] clase = new int[total];
+        for (int estado = 0; estado < numEstados; estado++) {
+            clase[estado] = finales[estado] ? 1 : 0;
+        }
+        clase[sumidero] = 0;
+
+        int numClases = -1;
+        while (true) {
+            HashMap<String, Integer> firmas = new HashMap();
+            int[] nuevaClase = new int[total];
+            int[] firma = new int[numSimbolos + 1];
+            for (int estado = 0; estado < total; estado++) {
+                firma[0] = clase[estado];
+                for (int simbolo = 0; simbolo < numSimbolos; simbolo++) {
+                    int destino = (estado == sumidero) ? -1 : transiciones[estado * numSimbolos + simbolo];
+                    firma[simbolo + 1] = clase[(destino < 0) ? sumidero : destino];
+                }
+                String clave = Arrays.toString(firma);
+                Integer asignada = firmas.get(clave);
+                if (asignada == null) {
+                    asignada = firmas.size();
+                    firmas.put(clave, asignada);
+                }
+                nuevaClase[estado] = asignada;
+            }
+            clase = nuevaClase;
+            if (firmas.size() == numClases) {
+                break;
+            }
+            numClases = firmas.size();
+        }
+
+        int claseSumidero = clase[sumidero];
+        int[] renumerada = new int[numClases];
+        Arrays.fill(renumerada, -1);
+        int numMinimos = 0;
+        for (int estado = 0; estado < numEstados; estado++) {
+            if ((clase[estado] != claseSumidero) && (renumerada[clase[estado]] < 0)) {
+                renumerada[clase[estado]] = numMinimos++;
+            }
+        }
+        if (clase[0] == claseSumidero) {
+            int[] vacio = new int[numSimbolos];
+            Arrays.fill(vacio, -1);
+            return new Dfa(1, numSimbolos, 0, vacio, new boolean[1]);
+        }
+
+        int[] minimas = new int[numMinimos * numSimbolos];
+        boolean[] finalesMinimos = new boolean[numMinimos];
+        for (int estado = 0; estado < numEstados; estado++) {
+            int nuevo = renumerada[clase[estado]];
+            if (nuevo < 0) {
+                continue;
+            }
+            finalesMinimos[nuevo] = finales[estado];
+            for (int simbolo = 0; simbolo < numSimbolos; simbolo++) {
+                int destino = transiciones[estado * numSimbolos + simbolo];
+                minimas[nuevo * numSimbolos + simbolo] = (destino < 0) ? -1 : renumerada[clase[destino]];
+            }
+        }
+        return new Dfa(numMinimos, numSimbolos, renumerada[clase[0]], minimas, finalesMinimos);
+    }
+
+    /**
+     * Se lanza cuando el NFA o el DFA superan el tamaño máximo permitido.
+     */
+    private static final class AutomataDemasiadoGrande extends RuntimeException {
+
+        private AutomataDemasiadoGrande() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm;
+
+/**
+ * Implementación escalar de BitKernel: un long en cada iteración.
+ *
+ * @author Álvaro Sánchez Mateos
+ */
+final class ScalarBitKernel implements BitKernel {
+
+    static final ScalarBitKernel INSTANCIA = new ScalarBitKernel();
+
+    private ScalarBitKernel() {
+    }
+
+    @Override
+    public void orInto(long[] destino, int desdeDestino, long[] origen, int desdeOrigen, int longitud) {
+        for (int indice = 0; indice < longitud; indice++) {
+            destino[desdeDestino + indice] |= origen[desdeOrigen + indice];
+        }
+    }
+
+    @Override
+    public void andInto(long[] destino, int desdeDestino, long[] origen, int desdeOrigen, int longitud) {
+        for (int indice = 0; indice < longitud; indice++) {
+            destino[desdeDestino + indice] &= origen[desdeOrigen + indice];
+        }
+    }
+
+    @Override
+    public boolean intersects(long[] primera, int desdePrimera, long[] segunda, int desdeSegunda, int longitud) {
+        for (int indice = 0; indice < longitud; indice++) {
+            if ((primera[desdePrimera + indice] & segunda[desdeSegunda + indice]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean isZero(long[] mascara, int desde, int longitud) {
+        for (int indice = 0; indice < longitud; indice++) {
+            if (mascara[desde + indice] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
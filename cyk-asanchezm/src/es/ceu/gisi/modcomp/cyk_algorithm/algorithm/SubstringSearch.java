@@ -0,0 +1,175 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Búsqueda de todas las subcadenas de un texto que deriva el axioma, con una
+ * longitud máxima de subcadena (maxSpan). El texto se recorre una sola vez, de
+ * izquierda a derecha: al leer cada carácter se calculan las casillas de CYK
+ * de las subcadenas que terminan en él, hasta maxSpan, a partir de las de los
+ * maxSpan caracteres anteriores. Esas casillas se guardan en un buffer
+ * circular de maxSpan x maxSpan casillas, así que la memoria no depende de la
+ * longitud del texto y la entrada puede ser un flujo de cualquier tamaño.
+ *
+ * Los caracteres que no son terminales de la gramática no producen error:
+ * simplemente ninguna subcadena que los contenga es derivable.
+ *
+ * La búsqueda no modifica el objeto, así que se puede usar desde varios hilos
+ * a la vez.
+ *
+ * @author Álvaro Sánchez Mateos
+ */
+public class SubstringSearch {
+
+    /**
+     * Recibe cada subcadena derivable encontrada.
+     */
+    @FunctionalInterface
+    public interface SpanListener {
+
+        /**
+         * @param inicio Posición (en caracteres) del primer carácter de la
+         * subcadena.
+         * @param fin Posición siguiente al último carácter de la subcadena.
+         */
+        void span(long inicio, long fin);
+    }
+
+    private static final int TAMANO_LECTURA = 8192;
+
+    private final CompiledGrammar gramatica;
+    private final int maxSpan;
+
+    /**
+     * @param gramatica La gramática; se usa una instantánea de su estado
+     * actual.
+     * @param maxSpan Longitud máxima de las subcadenas buscadas.
+     * @throws CYKAlgorithmException Si la gramática no tiene producciones o no
+     * tiene axioma.
+     * @throws IllegalArgumentException Si maxSpan es menor que 1.
+     */
+    public SubstringSearch(CYKAlgorithm gramatica, int maxSpan) throws CYKAlgorithmException {
+        if (maxSpan < 1) {
+            throw new IllegalArgumentException("maxSpan debe ser al menos 1: " + maxSpan);
+        }
+        this.gramatica = gramatica.getCompiledGrammar();
+        if ((this.gramatica.axioma < 0) || !this.gramatica.hasProductions()) {
+            throw new CYKAlgorithmException();
+        }
+        this.maxSpan = maxSpan;
+    }
+
+    /**
+     * @return La longitud máxima de las subcadenas buscadas.
+     */
+    public int getMaxSpan() {
+        return this.maxSpan;
+    }
+
+    /**
+     * Busca en el texto leído del Reader hasta su final. Las subcadenas se
+     * notifican ordenadas por posición final y, para la misma posición final,
+     * por posición inicial.
+     *
+     * @param entrada El texto (no se cierra).
+     * @param oyente Recibe cada subcadena derivable.
+     * @throws IOException Si falla la lectura.
+     */
+    public void search(Reader entrada, SpanListener oyente) throws IOException {
+        Ventana ventana = new Ventana();
+        char[] buffer = new char[TAMANO_LECTURA];
+        int leidos;
+        while ((leidos = entrada.read(buffer)) >= 0) {
+            for (int indice = 0; indice < leidos; indice++) {
+                ventana.avanzar(buffer[indice], oyente);
+            }
+        }
+    }
+
+    /**
+     * Busca en el texto completo, igual que search(Reader, SpanListener).
+     *
+     * @param texto El texto.
+     * @param oyente Recibe cada subcadena derivable.
+     */
+    public void search(CharSequence texto, SpanListener oyente) {
+        Ventana ventana = new Ventana();
+        for (int indice = 0; indice < texto.length(); indice++) {
+            ventana.avanzar(texto.charAt(indice), oyente);
+        }
+    }
+
+    /**
+     * @param texto El texto.
+     * @return Cada subcadena derivable como {inicio, fin}, en el orden de
+     * search.
+     */
+    public List<long[]> findAll(CharSequence texto) {
+        ArrayList<long[]> resultado = new ArrayList();
+        search(texto, (inicio, fin) -> resultado.add(new long[]{inicio, fin}));
+        return resultado;
+    }
+
+    /**
+     * Estado de una búsqueda: las casillas de las subcadenas que terminan en
+     * los últimos maxSpan caracteres. La casilla de la subcadena de longitud
+     * l que termina en la posición j está en la fila j % maxSpan, columna
+     * l - 1.
+     */
+    private final class Ventana {
+
+        private final int palabras = SubstringSearch.this.gramatica.palabras;
+        private final long[] celdas;
+        private long posicion;
+
+        Ventana() {
+            this.celdas = new long[SubstringSearch.this.maxSpan * SubstringSearch.this.maxSpan * this.palabras];
+            this.posicion = 0;
+        }
+
+        private int casilla(long fin, int longitud) {
+            int fila = (int) (fin % SubstringSearch.this.maxSpan);
+            return (fila * SubstringSearch.this.maxSpan + (longitud - 1)) * this.palabras;
+        }
+
+        /**
+         * Calcula las casillas de las subcadenas que terminan en el carácter
+         * leído y notifica las que contienen el axioma.
+         */
+        void avanzar(char simbolo, SpanListener oyente) {
+            CompiledGrammar g = SubstringSearch.this.gramatica;
+            long fin = this.posicion++;
+            int fila = casilla(fin, 1);
+            int maxima = (int) Math.min(SubstringSearch.this.maxSpan, fin + 1);
+            Arrays.fill(this.celdas, fila, fila + SubstringSearch.this.maxSpan * this.palabras, 0L);
+
+            int terminal = g.terminalIndex(simbolo);
+            if (terminal < 0) {
+                return;
+            }
+            System.arraycopy(g.mascaraUnaria, terminal * this.palabras, this.celdas, fila, this.palabras);
+
+            // La parte derecha de cada corte termina también en fin y es más
+            // corta, así que ya está calculada; la izquierda termina antes.
+            for (int longitud = 2; longitud <= maxima; longitud++) {
+                int destino = casilla(fin, longitud);
+                for (int corte = 1; corte < longitud; corte++) {
+                    CYKChart.combine(g, this.celdas, casilla(fin - (longitud - corte), corte),
+                            casilla(fin, longitud - corte), destino, null);
+                }
+            }
+
+            int axioma = g.axioma;
+            for (int longitud = maxima; longitud >= 1; longitud--) {
+                if ((this.celdas[casilla(fin, longitud) + (axioma >>> 6)] & (1L << axioma)) != 0) {
+                    oyente.span(fin - longitud + 1, fin + 1);
+                }
+            }
+        }
+    }
+}
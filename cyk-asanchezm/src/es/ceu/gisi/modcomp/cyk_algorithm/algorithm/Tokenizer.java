@@ -0,0 +1,26 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+
+/**
+ * Traduce un texto a la secuencia de identificadores de token que recibe
+ * isDerived(int[]). El identificador de un terminal es su índice en el orden
+ * en que se declaró en la gramática (el de CompiledGrammar.terminalIndex).
+ *
+ * La propia CompiledGrammar es el tokenizador por defecto, con un token por
+ * carácter; LexemeTable reconoce lexemas de varios caracteres separados por
+ * espacios.
+ *
+ * @author Álvaro Sánchez Mateos
+ */
+@FunctionalInterface
+public interface Tokenizer {
+
+    /**
+     * @param texto El texto a traducir.
+     * @return El identificador de cada token del texto, en orden.
+     * @throws CYKAlgorithmException Si algún token no corresponde a un
+     * terminal de la gramática.
+     */
+    int[] tokenize(CharSequence texto) throws CYKAlgorithmException;
+}
@@ -0,0 +1,94 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Implementación de BitKernel con la Vector API: procesa tantos long por
+ * iteración como quepan en el registro vectorial preferido de la CPU y
+ * termina la cola con un bucle escalar. Sólo se carga a través de
+ * BitKernel.select, cuando el módulo jdk.incubator.vector está disponible.
+ *
+ * @author Álvaro Sánchez Mateos
+ */
+final class VectorBitKernel implements BitKernel {
+
+    private static final VectorSpecies<Long> ESPECIE = LongVector.SPECIES_PREFERRED;
+
+    VectorBitKernel() {
+    }
+
+    int longsPerVector() {
+        return ESPECIE.length();
+    }
+
+    @Override
+    public void orInto(long[] destino, int desdeDestino, long[] origen, int desdeOrigen, int longitud) {
+        int indice = 0;
+        int limite = ESPECIE.loopBound(longitud);
+        for (; indice < limite; indice += ESPECIE.length()) {
+            LongVector actual = LongVector.fromArray(ESPECIE, destino, desdeDestino + indice);
+            LongVector nuevo = LongVector.fromArray(ESPECIE, origen, desdeOrigen + indice);
+            actual.or(nuevo).intoArray(destino, desdeDestino + indice);
+        }
+        for (; indice < longitud; indice++) {
+            destino[desdeDestino + indice] |= origen[desdeOrigen + indice];
+        }
+    }
+
+    @Override
+    public void andInto(long[] destino, int desdeDestino, long[] origen, int desdeOrigen, int longitud) {
+        int indice = 0;
+        int limite = ESPECIE.loopBound(longitud);
+        for (; indice < limite; indice += ESPECIE.length()) {
+            LongVector actual = LongVector.fromArray(ESPECIE, destino, desdeDestino + indice);
+            LongVector nuevo = LongVector.fromArray(ESPECIE, origen, desdeOrigen + indice);
+            actual.and(nuevo).intoArray(destino, desdeDestino + indice);
+        }
+        for (; indice < longitud; indice++) {
+            destino[desdeDestino + indice] &= origen[desdeOrigen + indice];
+        }
+    }
+
+    @Override
+    public boolean intersects(long[] primera, int desdePrimera, long[] segunda, int desdeSegunda, int longitud) {
+        int indice = 0;
+        int limite = ESPECIE.loopBound(longitud);
+        for (; indice < limite; indice += ESPECIE.length()) {
+            LongVector a = LongVector.fromArray(ESPECIE, primera, desdePrimera + indice);
+            LongVector b = LongVector.fromArray(ESPECIE, segunda, desdeSegunda + indice);
+            if (a.and(b).reduceLanes(VectorOperators.OR) != 0) {
+                return true;
+            }
+        }
+        for (; indice < longitud; indice++) {
+            if ((primera[desdePrimera + indice] & segunda[desdeSegunda + indice]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean isZero(long[] mascara, int desde, int longitud) {
+        int indice = 0;
+        int limite = ESPECIE.loopBound(longitud);
+        for (; indice < limite; indice += ESPECIE.length()) {
+            if (LongVector.fromArray(ESPECIE, mascara, desde + indice).reduceLanes(VectorOperators.OR) != 0) {
+                return false;
+            }
+        }
+        for (; indice < longitud; indice++) {
+            if (mascara[desde + indice] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String name() {
+        return "vector(" + ESPECIE.length() + "x64)";
+    }
+}
@@ -0,0 +1,368 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Generador de palabras de la gramática para pruebas de carga. Con
+ * programación dinámica sobre las producciones calcula, para cada no terminal
+ * A y cada longitud l hasta maxLongitud, el número de árboles de derivación
+ * de palabras de longitud l desde A (como BigInteger, porque crece de forma
+ * exponencial). Con esas cuentas se eligen árboles de derivación al azar de
+ * arriba abajo, cada uno con la misma probabilidad: en cada nodo se escoge la
+ * regla y el corte con probabilidad proporcional al número de árboles que
+ * quedan por debajo.
+ *
+ * Para cada no terminal A y longitud l se guardan además las sumas
+ * acumuladas de árboles por regla de A (O(maxLongitud · R) números, con R
+ * reglas binarias), así que en un nodo de longitud l la regla se elige con
+ * una búsqueda binaria y sólo se recorren los l - 1 cortes de esa regla. Una
+ * muestra de longitud n cuesta O(n log R) más la suma de las longitudes de
+ * sus nodos internos: O(n log n) operaciones con BigInteger si el árbol es
+ * equilibrado y O(n²) en el peor caso (un árbol degenerado en lista).
+ *
+ * Si la gramática es ambigua, las palabras con varios árboles salen con más
+ * probabilidad; si no lo es, la muestra es uniforme entre las palabras de la
+ * longitud pedida.
+ *
+ * Además de palabras del lenguaje genera negativos "cercanos": palabras del
+ * lenguaje con un único cambio (un terminal sustituido o dos vecinos
+ * intercambiados) que las saca del lenguaje, comprobado con el reconocedor
+ * (sin contar esas comprobaciones en las estadísticas del prefiltro).
+ *
+ * El generador es inmutable salvo por el Random que se le pasa, así que se
+ * puede compartir entre hilos si cada uno usa el suyo.
+ *
+ * @author Álvaro Sánchez Mateos
+ */
+public final class WordGenerator {
+
+    /**
+     * Recibe las palabras generadas, una a una.
+     */
+    @FunctionalInterface
+    public interface WordSink {
+
+        /**
+         * @param palabra La palabra generada.
+         * @param pertenece TRUE si pertenece al lenguaje.
+         * @throws IOException Si falla la escritura de la palabra.
+         */
+        void word(String palabra, boolean pertenece) throws IOException;
+    }
+
+    private static final int INTENTOS_MUTACION = 32;
+
+    private final CompiledGrammar gramatica;
+    private final int maxLongitud;
+    private final int[][] reglasPorCabeza;
+    private final int[][] terminalesPorCabeza;
+    private final BigInteger[][] cuentas;
+    private final BigInteger[][][] acumuladas;
+
+    /**
+     * @param gramatica La gramática; se usa una instantánea de su estado
+     * actual.
+     * @param maxLongitud Longitud máxima de las palabras generadas.
+     * @throws CYKAlgorithmException Si la gramática no tiene producciones o no
+     * tiene axioma.
+     * @throws IllegalArgumentException Si maxLongitud es menor que 1.
+     */
+    public WordGenerator(CYKAlgorithm gramatica, int maxLongitud) throws CYKAlgorithmException {
+        if (maxLongitud < 1) {
+            throw new IllegalArgumentException("maxLongitud debe ser al menos 1: " + maxLongitud);
+        }
+        this.gramatica = gramatica.getCompiledGrammar();
+        if ((this.gramatica.axioma < 0) || !this.gramatica.hasProductions()) {
+            throw new CYKAlgorithmException();
+        }
+        this.maxLongitud = maxLongitud;
+
+        int numNoTerminales = this.gramatica.noTerminales.length;
+        ArrayList<Integer>[] reglas = new ArrayList[numNoTerminales];
+        ArrayList<Integer>[] terminales = new ArrayList[numNoTerminales];
+        for (int noTerminal = 0; noTerminal < numNoTerminales; noTerminal++) {
+            reglas[noTerminal] = new ArrayList();
+            terminales[noTerminal] = new ArrayList();
+        }
+        for (int regla = 0; regla < this.gramatica.reglaCabeza.length; regla++) {
+            reglas[this.gramatica.reglaCabeza[regla]].add(regla);
+        }
+        for (int terminal = 0; terminal < this.gramatica.unarias.length; terminal++) {
+            for (int cabeza : this.gramatica.unarias[terminal]) {
+                terminales[cabeza].add(terminal);
+            }
+        }
+        this.reglasPorCabeza = new int[numNoTerminales][];
+        this.terminalesPorCabeza = new int[numNoTerminales][];
+        for (int noTerminal = 0; noTerminal < numNoTerminales; noTerminal++) {
+            this.reglasPorCabeza[noTerminal] = reglas[noTerminal].stream().mapToInt(Integer::intValue).toArray();
+            this.terminalesPorCabeza[noTerminal] = terminales[noTerminal].stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        // cuentas[l][A]: árboles de derivación de palabras de longitud l
+        // desde A. Con A::=BC, cada corte k aporta cuentas[k][B] por
+        // cuentas[l-k][C]. acumuladas[l][A][i]: árboles de las reglas
+        // 0..i de A, cuyo último elemento es cuentas[l][A].
+        this.cuentas = new BigInteger[maxLongitud + 1][numNoTerminales];
+        this.acumuladas = new BigInteger[maxLongitud + 1][numNoTerminales][];
+        for (int noTerminal = 0; noTerminal < numNoTerminales; noTerminal++) {
+            this.cuentas[0][noTerminal] = BigInteger.ZERO;
+            this.cuentas[1][noTerminal] = BigInteger.valueOf(this.terminalesPorCabeza[noTerminal].length);
+        }
+        for (int longitud = 2; longitud <= maxLongitud; longitud++) {
+            for (int noTerminal = 0; noTerminal < numNoTerminales; noTerminal++) {
+                int[] reglasCabeza = this.reglasPorCabeza[noTerminal];
+                BigInteger[] parciales = new BigInteger[reglasCabeza.length];
+                BigInteger total = BigInteger.ZERO;
+                for (int indice = 0; indice < reglasCabeza.length; indice++) {
+                    for (int corte = 1; corte < longitud; corte++) {
+                        total = total.add(arboles(reglasCabeza[indice], longitud, corte));
+                    }
+                    parciales[indice] = total;
+                }
+                this.cuentas[longitud][noTerminal] = total;
+                this.acumuladas[longitud][noTerminal] = parciales;
+            }
+        }
+    }
+
+    /**
+     * @return La longitud máxima de las palabras generadas.
+     */
+    public int getMaxLength() {
+        return this.maxLongitud;
+    }
+
+    /**
+     * @param longitud Longitud de las palabras, entre 0 y maxLongitud.
+     * @return El número de árboles de derivación desde el axioma de palabras
+     * de esa longitud. Si la gramática no es ambigua, es el número de
+     * palabras del lenguaje con esa longitud.
+     * @throws IllegalArgumentException Si la longitud está fuera de rango.
+     */
+    public BigInteger count(int longitud) {
+        comprobarLongitud(longitud);
+        return this.cuentas[longitud][this.gramatica.axioma];
+    }
+
+    /**
+     * Elige al azar un árbol de derivación desde el axioma de una palabra de
+     * la longitud indicada, todos con la misma probabilidad, y devuelve su
+     * palabra.
+     *
+     * @param longitud Longitud de la palabra, entre 1 y maxLongitud.
+     * @param aleatorio Fuente de aleatoriedad.
+     * @return Una palabra del lenguaje de esa longitud.
+     * @throws IllegalArgumentException Si la longitud está fuera de rango o
+     * el lenguaje no tiene palabras de esa longitud.
+     */
+    public String sample(int longitud, Random aleatorio) {
+        return texto(muestrear(longitud, aleatorio));
+    }
+
+    /**
+     * Genera una palabra de la longitud indicada que no pertenece al
+     * lenguaje pero se parece a una que sí: parte de sample y aplica un único
+     * cambio, sustituir un terminal por otro o intercambiar dos terminales
+     * vecinos distintos, hasta que el resultado queda fuera del lenguaje.
+     *
+     * @param longitud Longitud de la palabra, entre 1 y maxLongitud.
+     * @param aleatorio Fuente de aleatoriedad.
+     * @return Una palabra que no pertenece al lenguaje, o null si tras varios
+     * intentos ningún cambio saca la palabra del lenguaje (por ejemplo, si el
+     * lenguaje contiene todas las palabras de esa longitud).
+     * @throws IllegalArgumentException En los mismos casos que sample.
+     */
+    public String nearMiss(int longitud, Random aleatorio) {
+        int[] base = muestrear(longitud, aleatorio);
+        int numTerminales = this.gramatica.terminales.length;
+        int[] simbolos = new int[longitud];
+        for (int intento = 0; intento < INTENTOS_MUTACION; intento++) {
+            System.arraycopy(base, 0, simbolos, 0, longitud);
+            int posicion = aleatorio.nextInt(longitud);
+            if ((longitud > 1) && aleatorio.nextBoolean()) {
+                posicion = Math.min(posicion, longitud - 2);
+                if (simbolos[posicion] == simbolos[posicion + 1]) {
+                    continue;
+                }
+                int auxiliar = simbolos[posicion];
+                simbolos[posicion] = simbolos[posicion + 1];
+                simbolos[posicion + 1] = auxiliar;
+            } else {
+                if (numTerminales < 2) {
+                    continue;
+                }
+                simbolos[posicion] = (simbolos[posicion] + 1 + aleatorio.nextInt(numTerminales - 1)) % numTerminales;
+            }
+            if (!reconoce(simbolos)) {
+                return texto(simbolos);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Genera palabras de forma continua y las entrega al destino según se
+     * generan, sin guardarlas. La longitud de cada palabra se elige al azar
+     * entre las de [minLongitud, maxLongitud] para las que el lenguaje tiene
+     * palabras. Si para una palabra que debía ser negativa no se encuentra
+     * ningún negativo cercano, se entrega en su lugar una palabra del
+     * lenguaje.
+     *
+     * @param cantidad Número de palabras a generar.
+     * @param minLongitud Longitud mínima, al menos 1.
+     * @param maxLongitud Longitud máxima, como mucho getMaxLength().
+     * @param proporcionNegativas Probabilidad, entre 0 y 1, de que cada
+     * palabra sea un negativo cercano.
+     * @param aleatorio Fuente de aleatoriedad.
+     * @param destino Recibe cada palabra con su etiqueta.
+     * @throws IOException Si el destino falla.
+     * @throws IllegalArgumentException Si algún parámetro está fuera de rango
+     * o el lenguaje no tiene palabras con esas longitudes.
+     */
+    public void generate(long cantidad, int minLongitud, int maxLongitud, double proporcionNegativas,
+            Random aleatorio, WordSink destino) throws IOException {
+        if ((minLongitud < 1) || (maxLongitud < minLongitud) || (proporcionNegativas < 0)
+                || (proporcionNegativas > 1)) {
+            throw new IllegalArgumentException();
+        }
+        comprobarLongitud(maxLongitud);
+        ArrayList<Integer> longitudes = new ArrayList();
+        for (int longitud = minLongitud; longitud <= maxLongitud; longitud++) {
+            if (count(longitud).signum() > 0) {
+                longitudes.add(longitud);
+            }
+        }
+        if (longitudes.isEmpty()) {
+            throw new IllegalArgumentException("El lenguaje no tiene palabras entre " + minLongitud + " y "
+                    + maxLongitud);
+        }
+
+        for (long generadas = 0; generadas < cantidad; generadas++) {
+            int longitud = longitudes.get(aleatorio.nextInt(longitudes.size()));
+            String negativa = (aleatorio.nextDouble() < proporcionNegativas) ? nearMiss(longitud, aleatorio) : null;
+            if (negativa != null) {
+                destino.word(negativa, false);
+            } else {
+                destino.word(sample(longitud, aleatorio), true);
+            }
+        }
+    }
+
+    /**
+     * Árboles de la regla A::=BC para longitud l con el corte indicado: B
+     * deriva los primeros "corte" símbolos y C el resto.
+     */
+    private BigInteger arboles(int regla, int longitud, int corte) {
+        BigInteger izquierda = this.cuentas[corte][this.gramatica.reglaIzquierda[regla]];
+        if (izquierda.signum() == 0) {
+            return BigInteger.ZERO;
+        }
+        return izquierda.multiply(this.cuentas[longitud - corte][this.gramatica.reglaDerecha[regla]]);
+    }
+
+    /**
+     * Elige el árbol de arriba abajo con una pila explícita de subcadenas
+     * pendientes (no terminal, inicio, longitud), para que las palabras
+     * largas no dependan de la profundidad de la pila de llamadas.
+     */
+    private int[] muestrear(int longitud, Random aleatorio) {
+        if ((longitud < 1) || (count(longitud).signum() == 0)) {
+            throw new IllegalArgumentException("El lenguaje no tiene palabras de longitud " + longitud);
+        }
+        int[] simbolos = new int[longitud];
+        int[] pila = new int[3 * longitud];
+        int cima = 0;
+        pila[cima++] = this.gramatica.axioma;
+        pila[cima++] = 0;
+        pila[cima++] = longitud;
+
+        while (cima > 0) {
+            int actual = pila[cima - 3];
+            int inicio = pila[cima - 2];
+            int resto = pila[cima - 1];
+            cima -= 3;
+
+            if (resto == 1) {
+                int[] terminales = this.terminalesPorCabeza[actual];
+                simbolos[inicio] = terminales[aleatorio.nextInt(terminales.length)];
+                continue;
+            }
+
+            // La regla es la primera cuya suma acumulada supera al elegido;
+            // dentro de ella, el corte se busca recorriendo los cortes.
+            BigInteger[] parciales = this.acumuladas[resto][actual];
+            BigInteger elegido = aleatorio(this.cuentas[resto][actual], aleatorio);
+            int indice = primeraMayor(parciales, elegido);
+            if (indice > 0) {
+                elegido = elegido.subtract(parciales[indice - 1]);
+            }
+            int regla = this.reglasPorCabeza[actual][indice];
+            for (int corte = 1; corte < resto; corte++) {
+                BigInteger arboles = arboles(regla, resto, corte);
+                if (elegido.compareTo(arboles) < 0) {
+                    pila[cima++] = this.gramatica.reglaIzquierda[regla];
+                    pila[cima++] = inicio;
+                    pila[cima++] = corte;
+                    pila[cima++] = this.gramatica.reglaDerecha[regla];
+                    pila[cima++] = inicio + corte;
+                    pila[cima++] = resto - corte;
+                    break;
+                }
+                elegido = elegido.subtract(arboles);
+            }
+        }
+        return simbolos;
+    }
+
+    /**
+     * @return El primer índice de las sumas acumuladas (no decrecientes)
+     * cuyo valor es mayor que el elegido.
+     */
+    private static int primeraMayor(BigInteger[] parciales, BigInteger elegido) {
+        int desde = 0;
+        int hasta = parciales.length - 1;
+        while (desde < hasta) {
+            int medio = (desde + hasta) >>> 1;
+            if (parciales[medio].compareTo(elegido) > 0) {
+                hasta = medio;
+            } else {
+                desde = medio + 1;
+            }
+        }
+        return desde;
+    }
+
+    /**
+     * @return Un entero uniforme en [0, limite).
+     */
+    private static BigInteger aleatorio(BigInteger limite, Random aleatorio) {
+        BigInteger resultado;
+        do {
+            resultado = new BigInteger(limite.bitLength(), aleatorio);
+        } while (resultado.compareTo(limite) >= 0);
+        return resultado;
+    }
+
+    private boolean reconoce(int[] simbolos) {
+        return this.gramatica.accepts(simbolos);
+    }
+
+    private String texto(int[] simbolos) {
+        char[] caracteres = new char[simbolos.length];
+        for (int indice = 0; indice < simbolos.length; indice++) {
+            caracteres[indice] = this.gramatica.terminales[simbolos[indice]];
+        }
+        return new String(caracteres);
+    }
+
+    private void comprobarLongitud(int longitud) {
+        if ((longitud < 0) || (longitud > this.maxLongitud)) {
+            throw new IllegalArgumentException("Longitud fuera de rango: " + longitud);
+        }
+    }
+}
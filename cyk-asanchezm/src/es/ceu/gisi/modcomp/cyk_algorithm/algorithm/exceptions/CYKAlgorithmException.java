@@ -9,4 +9,8 @@ public class CYKAlgorithmException extends Exception {
     public CYKAlgorithmException() {
     }
 
+    public CYKAlgorithmException(String message) {
+        super(message);
+    }
+
 }
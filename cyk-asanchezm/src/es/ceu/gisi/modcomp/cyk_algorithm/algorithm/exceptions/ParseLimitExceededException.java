@@ -0,0 +1,74 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions;
+
+/**
+ * Se lanza cuando isDerived abandona una palabra por haber superado alguno de
+ * los límites de ParseLimits (plazo, presupuesto de operaciones o
+ * cancelación). Indica hasta dónde había llegado el relleno de la tabla.
+ *
+ * @author Álvaro Sánchez Mateos
+ */
+public class ParseLimitExceededException extends CYKAlgorithmException {
+
+    /**
+     * El límite que se ha superado.
+     */
+    public enum Limit {
+        DEADLINE, BUDGET, CANCELLED
+    }
+
+    private final Limit limite;
+    private final int longitudPalabra;
+    private final int longitudCompletada;
+    private final long casillas;
+    private final long operaciones;
+    private final long nanos;
+
+    /**
+     * @param limite El límite superado.
+     * @param longitudPalabra Longitud de la palabra analizada.
+     * @param longitudCompletada Mayor longitud de subcadena cuyas casillas se
+     * habían calculado todas.
+     * @param casillas Casillas calculadas.
+     * @param operaciones Pares de casillas combinados.
+     * @param nanos Tiempo transcurrido desde el inicio del análisis.
+     */
+    public ParseLimitExceededException(Limit limite, int longitudPalabra, int longitudCompletada, long casillas,
+            long operaciones, long nanos) {
+        super("Límite " + limite + " superado tras " + longitudCompletada + " de " + longitudPalabra
+                + " filas, " + casillas + " casillas y " + operaciones + " operaciones");
+        this.limite = limite;
+        this.longitudPalabra = longitudPalabra;
+        this.longitudCompletada = longitudCompletada;
+        this.casillas = casillas;
+        this.operaciones = operaciones;
+        this.nanos = nanos;
+    }
+
+    public Limit getLimit() {
+        return this.limite;
+    }
+
+    public int getWordLength() {
+        return this.longitudPalabra;
+    }
+
+    /**
+     * @return Mayor longitud de subcadena cuyas casillas estaban todas
+     * calculadas (las filas completas de la tabla).
+     */
+    public int getCompletedLength() {
+        return this.longitudCompletada;
+    }
+
+    public long getCells() {
+        return this.casillas;
+    }
+
+    public long getOperations() {
+        return this.operaciones;
+    }
+
+    public long getElapsedNanos() {
+        return this.nanos;
+    }
+}
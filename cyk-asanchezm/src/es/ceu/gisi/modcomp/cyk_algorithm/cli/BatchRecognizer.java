@@ -0,0 +1,312 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.cli;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.CYKAlgorithm;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.CompiledGrammar;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.GrammarFile;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.ParseLimits;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.ParseLimitExceededException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Reconocedor por lotes desde la línea de comandos. Carga una gramática con
+ * GrammarFile, lee palabras (una por línea) de ficheros o de la entrada
+ * estándar y las pasa por isDerived en paralelo, escribiendo los resultados en
+ * el mismo orden de entrada y un resumen de rendimiento en la salida de error.
+ *
+ * Todos los hilos reconocen con la misma instancia de CYKAlgorithm, que no
+ * guarda estado de cada análisis y comparte así la gramática compilada.
+ *
+ * @author Álvaro Sánchez Mateos
+ */
+public final class BatchRecognizer {
+
+    private static final String USO = "uso: java -jar cyk-asanchezm.jar -g <gramática> [-t <hilos>] [-b <palabras por bloque>]\n"
+            + "                                  [-o <salida>] [-m] [-l <ms>] [fichero ...]\n"
+            + "  -g  fichero de gramática (formato 'S::=AB|a', ver GrammarFile)\n"
+            + "  -t  número de hilos (por defecto, los procesadores disponibles)\n"
+            + "  -b  palabras por bloque de trabajo (por defecto 4096)\n"
+            + "  -o  fichero de salida (por defecto, la salida estándar)\n"
+            + "  -m  proyecta en memoria los ficheros de entrada\n"
+            + "  -l  tiempo máximo por palabra en milisegundos; si se agota, el resultado es 'limit'\n"
+            + "  sin ficheros, o con '-', se lee de la entrada estándar";
+
+    private final CYKAlgorithm algoritmo;
+    private final int hilos;
+    private final int tamanioBloque;
+    private final long limiteMillis;
+    private long palabras;
+    private long aceptadas;
+    private long rechazadas;
+    private long erroneas;
+    private long limitadas;
+    private long bytesLeidos;
+
+    /**
+     * @param gramatica Algoritmo con la gramática ya cargada. No se modifica:
+     * se reconoce con una instantánea suya.
+     * @param hilos Número de hilos de reconocimiento.
+     * @param tamanioBloque Número de palabras que procesa cada tarea.
+     */
+    public BatchRecognizer(CYKAlgorithm gramatica, int hilos, int tamanioBloque) {
+        this(gramatica, hilos, tamanioBloque, 0);
+    }
+
+    /**
+     * @param gramatica Algoritmo con la gramática ya cargada. No se modifica:
+     * se reconoce con una instantánea suya.
+     * @param hilos Número de hilos de reconocimiento.
+     * @param tamanioBloque Número de palabras que procesa cada tarea.
+     * @param limiteMillis Tiempo máximo de análisis de cada palabra, o 0 si no
+     * hay límite. Las palabras que lo agotan se dan por "limit" en lugar de
+     * retrasar al resto del bloque.
+     */
+    public BatchRecognizer(CYKAlgorithm gramatica, int hilos, int tamanioBloque, long limiteMillis) {
+        this.algoritmo = new CYKAlgorithm(gramatica);
+        // Compilada antes de repartir el trabajo, para que ningún hilo espere
+        // a la compilación.
+        this.algoritmo.getCompiledGrammar();
+        this.hilos = hilos;
+        this.tamanioBloque = tamanioBloque;
+        this.limiteMillis = limiteMillis;
+    }
+
+    /**
+     * Reconoce todas las palabras de las entradas, en orden, y escribe una
+     * línea "palabra\tresultado" por cada una, donde resultado es true, false,
+     * error (si la palabra contiene símbolos que no son terminales de la
+     * gramática) o limit (si se agota el tiempo máximo por palabra).
+     *
+     * @param entradas Lectores de palabras, que se consumen y cierran en orden.
+     * @param salida Canal donde se escriben los resultados.
+     * @throws IOException Si falla la lectura o la escritura.
+     * @throws InterruptedException Si se interrumpe la espera de resultados.
+     */
+    void run(List<WordReader> entradas, WritableByteChannel salida) throws IOException, InterruptedException {
+        ExecutorService ejecutor = Executors.newFixedThreadPool(this.hilos, tarea -> {
+            Thread hilo = new Thread(tarea, "cyk-reconocedor");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        ArrayDeque<Future<Bloque>> pendientes = new ArrayDeque();
+
+        try {
+            for (WordReader entrada : entradas) {
+                try (WordReader lector = entrada) {
+                    Bloque bloque = new Bloque(this.tamanioBloque);
+                    String palabra;
+                    while ((palabra = lector.next()) != null) {
+                        bloque.palabras[bloque.tamanio++] = palabra;
+                        if (bloque.tamanio == this.tamanioBloque) {
+                            enviar(bloque, ejecutor, pendientes, salida);
+                            bloque = new Bloque(this.tamanioBloque);
+                        }
+                    }
+                    if (bloque.tamanio > 0) {
+                        enviar(bloque, ejecutor, pendientes, salida);
+                    }
+                    this.bytesLeidos += lector.bytesRead();
+                }
+            }
+            while (!pendientes.isEmpty()) {
+                escribir(pendientes.poll(), salida);
+            }
+        } finally {
+            ejecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Envía el bloque a los hilos de reconocimiento. Si hay demasiados
+     * bloques en vuelo, primero escribe el más antiguo, de modo que la lectura
+     * nunca se adelanta demasiado a la escritura.
+     */
+    private void enviar(Bloque bloque, ExecutorService ejecutor, ArrayDeque<Future<Bloque>> pendientes,
+            WritableByteChannel salida) throws IOException, InterruptedException {
+        if (pendientes.size() >= 2 * this.hilos) {
+            escribir(pendientes.poll(), salida);
+        }
+        pendientes.add(ejecutor.submit(() -> reconocer(bloque)));
+    }
+
+    private Bloque reconocer(Bloque bloque) {
+        StringBuilder resultado = new StringBuilder(bloque.tamanio * 16);
+        for (int indice = 0; indice < bloque.tamanio; indice++) {
+            String palabra = bloque.palabras[indice];
+            resultado.append(palabra).append('\t');
+            try {
+                // Una palabra vacía nunca se deriva de una gramática en FNC.
+                ParseLimits limites = (this.limiteMillis > 0)
+                        ? ParseLimits.NONE.withTimeout(Duration.ofMillis(this.limiteMillis))
+                        : ParseLimits.NONE;
+                if (!palabra.isEmpty() && this.algoritmo.isDerived(palabra, limites)) {
+                    resultado.append("true");
+                    bloque.aceptadas++;
+                } else {
+                    resultado.append("false");
+                    bloque.rechazadas++;
+                }
+            } catch (ParseLimitExceededException e) {
+                resultado.append("limit");
+                bloque.limitadas++;
+            } catch (CYKAlgorithmException e) {
+                resultado.append("error");
+                bloque.erroneas++;
+            }
+            resultado.append('\n');
+            bloque.palabras[indice] = null;
+        }
+        bloque.salida = resultado.toString().getBytes(StandardCharsets.UTF_8);
+
+        return bloque;
+    }
+
+    private void escribir(Future<Bloque> pendiente, WritableByteChannel salida) throws IOException, InterruptedException {
+        Bloque bloque;
+        try {
+            bloque = pendiente.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+
+        ByteBuffer datos = ByteBuffer.wrap(bloque.salida);
+        while (datos.hasRemaining()) {
+            salida.write(datos);
+        }
+        this.palabras += bloque.tamanio;
+        this.aceptadas += bloque.aceptadas;
+        this.rechazadas += bloque.rechazadas;
+        this.erroneas += bloque.erroneas;
+        this.limitadas += bloque.limitadas;
+    }
+
+    /**
+     * Palabras de una tarea y sus resultados ya codificados.
+     */
+    private static final class Bloque {
+
+        private final String[] palabras;
+        private int tamanio;
+        private byte[] salida;
+        private int aceptadas;
+        private int rechazadas;
+        private int erroneas;
+        private int limitadas;
+
+        private Bloque(int capacidad) {
+            this.palabras = new String[capacidad];
+            this.tamanio = 0;
+        }
+    }
+
+    public static void main(String[] args) {
+        Path gramatica = null;
+        Path fichSalida = null;
+        int hilos = Runtime.getRuntime().availableProcessors();
+        int tamanioBloque = 4096;
+        boolean proyectar = false;
+        long limiteMillis = 0;
+        List<String> ficheros = new ArrayList();
+
+        try {
+            for (int indice = 0; indice < args.length; indice++) {
+                switch (args[indice]) {
+                    case "-g":
+                        gramatica = Paths.get(args[++indice]);
+                        break;
+                    case "-t":
+                        hilos = Integer.parseInt(args[++indice]);
+                        break;
+                    case "-b":
+                        tamanioBloque = Integer.parseInt(args[++indice]);
+                        break;
+                    case "-o":
+                        fichSalida = Paths.get(args[++indice]);
+                        break;
+                    case "-m":
+                        proyectar = true;
+                        break;
+                    case "-l":
+                        limiteMillis = Long.parseLong(args[++indice]);
+                        break;
+                    default:
+                        ficheros.add(args[indice]);
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            gramatica = null;
+        }
+        if ((gramatica == null) || (hilos < 1) || (tamanioBloque < 1) || (limiteMillis < 0)) {
+            System.err.println(USO);
+            System.exit(2);
+        }
+        if (ficheros.isEmpty()) {
+            ficheros.add("-");
+        }
+
+        try {
+            CYKAlgorithm algoritmo = new CYKAlgorithm();
+            GrammarFile.load(gramatica, algoritmo);
+
+            List<WordReader> entradas = new ArrayList();
+            for (String fichero : ficheros) {
+                if (fichero.equals("-")) {
+                    entradas.add(WordReader.fromChannel(Channels.newChannel(System.in)));
+                } else if (proyectar) {
+                    entradas.add(WordReader.mapping(Paths.get(fichero)));
+                } else {
+                    entradas.add(WordReader.fromChannel(FileChannel.open(Paths.get(fichero))));
+                }
+            }
+
+            WritableByteChannel salida = (fichSalida != null)
+                    ? new FileOutputStream(fichSalida.toFile()).getChannel()
+                    : Channels.newChannel(System.out);
+            BatchRecognizer reconocedor = new BatchRecognizer(algoritmo, hilos, tamanioBloque, limiteMillis);
+            long inicio = System.nanoTime();
+            try (WritableByteChannel canal = salida) {
+                reconocedor.run(entradas, canal);
+            }
+            reconocedor.imprimirResumen(System.nanoTime() - inicio);
+        } catch (CYKAlgorithmException e) {
+            System.err.println("Gramática no válida: " + e.getMessage());
+            System.exit(1);
+        } catch (IOException e) {
+            System.err.println("Error de entrada/salida: " + e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.exit(1);
+        }
+    }
+
+    private void imprimirResumen(long nanos) {
+        double segundos = nanos / 1e9;
+        System.err.printf(Locale.ROOT, "palabras=%d aceptadas=%d rechazadas=%d erroneas=%d limitadas=%d%n",
+                this.palabras, this.aceptadas, this.rechazadas, this.erroneas, this.limitadas);
+        System.err.printf(Locale.ROOT, "tiempo=%.3fs palabras/s=%.0f MB/s=%.2f hilos=%d motor=%s%n",
+                segundos, this.palabras / segundos, this.bytesLeidos / 1e6 / segundos, this.hilos,
+                this.algoritmo.getEngine());
+        CompiledGrammar compilada = this.algoritmo.getCompiledGrammar();
+        long comprobadas = compilada.getPrefilterChecks();
+        System.err.printf(Locale.ROOT, "prefiltro=%d/%d descartadas (%.1f%%)%n", compilada.getPrefilterRejections(),
+                comprobadas, (comprobadas == 0) ? 0.0 : 100.0 * compilada.getPrefilterRejections() / comprobadas);
+    }
+}
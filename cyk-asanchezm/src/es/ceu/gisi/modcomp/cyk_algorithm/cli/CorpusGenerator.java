@@ -0,0 +1,118 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.cli;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.CYKAlgorithm;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.GrammarFile;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.WordGenerator;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ * Generador de corpus desde la línea de comandos. Carga una gramática con
+ * GrammarFile y escribe palabras al azar del lenguaje (y, si se pide,
+ * negativos cercanos) con WordGenerator, una por línea, según se generan. Sin
+ * etiquetas, la salida se puede pasar directamente a BatchRecognizer.
+ *
+ * @author Álvaro Sánchez Mateos
+ */
+public final class CorpusGenerator {
+
+    private static final String USO = "uso: java -cp cyk-asanchezm.jar es.ceu.gisi.modcomp.cyk_algorithm.cli.CorpusGenerator\n"
+            + "           -g <gramática> [-n <palabras>] [-l <mín>-<máx>] [-x <proporción>] [-s <semilla>] [-e] [-o <salida>]\n"
+            + "  -g  fichero de gramática (formato 'S::=AB|a', ver GrammarFile)\n"
+            + "  -n  número de palabras (por defecto 1000)\n"
+            + "  -l  longitudes de las palabras (por defecto 1-20)\n"
+            + "  -x  proporción de negativos cercanos, entre 0 y 1 (por defecto 0)\n"
+            + "  -s  semilla (por defecto, al azar)\n"
+            + "  -e  añade a cada palabra un tabulador y su etiqueta (true o false)\n"
+            + "  -o  fichero de salida (por defecto, la salida estándar)";
+
+    private CorpusGenerator() {
+    }
+
+    public static void main(String[] args) {
+        Path gramatica = null;
+        Path fichSalida = null;
+        long cantidad = 1000;
+        int minLongitud = 1;
+        int maxLongitud = 20;
+        double proporcion = 0;
+        Random aleatorio = new Random();
+        boolean etiquetas = false;
+
+        try {
+            for (int indice = 0; indice < args.length; indice++) {
+                switch (args[indice]) {
+                    case "-g":
+                        gramatica = Paths.get(args[++indice]);
+                        break;
+                    case "-n":
+                        cantidad = Long.parseLong(args[++indice]);
+                        break;
+                    case "-l":
+                        String[] partes = args[++indice].split("-", 2);
+                        minLongitud = Integer.parseInt(partes[0]);
+                        maxLongitud = (partes.length > 1) ? Integer.parseInt(partes[1]) : minLongitud;
+                        break;
+                    case "-x":
+                        proporcion = Double.parseDouble(args[++indice]);
+                        break;
+                    case "-s":
+                        aleatorio = new Random(Long.parseLong(args[++indice]));
+                        break;
+                    case "-e":
+                        etiquetas = true;
+                        break;
+                    case "-o":
+                        fichSalida = Paths.get(args[++indice]);
+                        break;
+                    default:
+                        gramatica = null;
+                        indice = args.length;
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            gramatica = null;
+        }
+        if ((gramatica == null) || (cantidad < 0) || (minLongitud < 1) || (maxLongitud < minLongitud)
+                || (proporcion < 0) || (proporcion > 1)) {
+            System.err.println(USO);
+            System.exit(2);
+        }
+
+        try {
+            CYKAlgorithm algoritmo = new CYKAlgorithm();
+            GrammarFile.load(gramatica, algoritmo);
+            WordGenerator generador = new WordGenerator(algoritmo, maxLongitud);
+
+            OutputStream salida = (fichSalida != null) ? new FileOutputStream(fichSalida.toFile()) : System.out;
+            boolean conEtiquetas = etiquetas;
+            try (Writer escritor = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8))) {
+                generador.generate(cantidad, minLongitud, maxLongitud, proporcion, aleatorio, (palabra, pertenece) -> {
+                    escritor.write(palabra);
+                    if (conEtiquetas) {
+                        escritor.write(pertenece ? "\ttrue" : "\tfalse");
+                    }
+                    escritor.write('\n');
+                });
+            }
+        } catch (CYKAlgorithmException e) {
+            System.err.println("Gramática no válida: " + e.getMessage());
+            System.exit(1);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        } catch (IOException e) {
+            System.err.println("Error de entrada/salida: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
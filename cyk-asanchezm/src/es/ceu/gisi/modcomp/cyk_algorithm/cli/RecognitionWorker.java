@@ -0,0 +1,83 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.cli;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.CYKAlgorithm;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.GrammarSnapshot;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.ParseLimits;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.ParseLimitExceededException;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Proceso de reconocimiento que lanza ShardedRecognizer. Lee la gramática y
+ * los lotes de palabras de la entrada estándar, los reconoce con isDerived y
+ * escribe los resultados en la salida estándar, con el formato de
+ * WorkerProtocol. Termina cuando se cierra su entrada.
+ *
+ * @author Álvaro Sánchez Mateos
+ */
+public final class RecognitionWorker {
+
+    private RecognitionWorker() {
+    }
+
+    public static void main(String[] args) {
+        DataInputStream entrada = new DataInputStream(new BufferedInputStream(System.in, 1 << 16));
+        DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(System.out, 1 << 16));
+
+        try {
+            if (entrada.readInt() != WorkerProtocol.MAGIA) {
+                System.err.println("Cabecera no válida");
+                System.exit(2);
+            }
+            CYKAlgorithm algoritmo = GrammarSnapshot.read(entrada);
+            long limiteMillis = entrada.readLong();
+            algoritmo.getCompiledGrammar();
+
+            while (true) {
+                long lote;
+                try {
+                    lote = entrada.readLong();
+                } catch (EOFException e) {
+                    break;
+                }
+                int tamanio = entrada.readInt();
+                String[] palabras = WorkerProtocol.readWords(entrada, tamanio);
+
+                salida.writeLong(lote);
+                salida.writeInt(tamanio);
+                for (String palabra : palabras) {
+                    salida.writeByte(reconocer(algoritmo, palabra, limiteMillis));
+                }
+                salida.flush();
+            }
+        } catch (CYKAlgorithmException e) {
+            System.err.println("Gramática no válida: " + e.getMessage());
+            System.exit(1);
+        } catch (IOException e) {
+            System.err.println("Error de entrada/salida: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static byte reconocer(CYKAlgorithm algoritmo, String palabra, long limiteMillis) {
+        try {
+            // Una palabra vacía nunca se deriva de una gramática en FNC.
+            ParseLimits limites = (limiteMillis > 0)
+                    ? ParseLimits.NONE.withTimeout(Duration.ofMillis(limiteMillis))
+                    : ParseLimits.NONE;
+            return (!palabra.isEmpty() && algoritmo.isDerived(palabra, limites))
+                    ? WorkerProtocol.TRUE
+                    : WorkerProtocol.FALSE;
+        } catch (ParseLimitExceededException e) {
+            return WorkerProtocol.LIMIT;
+        } catch (CYKAlgorithmException e) {
+            return WorkerProtocol.ERROR;
+        }
+    }
+}
@@ -0,0 +1,702 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.cli;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.CYKAlgorithm;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.GrammarFile;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.GrammarSnapshot;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reconocedor por lotes repartido entre varios procesos locales. El
+ * coordinador carga la gramática, lanza N procesos RecognitionWorker y envía
+ * a cada uno una copia exacta de la gramática (GrammarSnapshot) por su
+ * entrada estándar. Después divide las palabras de entrada en lotes de coste
+ * estimado parecido, contando n³ por palabra de longitud n, y manda cada lote
+ * al proceso con menos coste pendiente. Los resultados se escriben en el
+ * orden de entrada, con el mismo formato que BatchRecognizer.
+ *
+ * Control de flujo: cada proceso tiene como mucho EN_VUELO_POR_PROCESO lotes
+ * sin responder, y no se leen más palabras mientras haya más de
+ * PENDIENTES_POR_PROCESO lotes por proceso sin escribir, así que la memoria
+ * no depende del tamaño de la entrada aunque un lote lento retrase la
+ * escritura de los siguientes.
+ *
+ * Si un proceso termina, responde algo que no se esperaba o se queda colgado,
+ * se mata y se relanza (hasta maxReinicios veces por proceso) y sus lotes sin
+ * responder se reparten de nuevo. Se considera colgado si no responde al lote
+ * más antiguo que tiene pendiente antes de su plazo: respuestaMillis más
+ * limiteMillis por cada palabra del lote, contados desde que el lote pasa a
+ * ser el más antiguo del proceso. Un lote que ha tumbado MAX_INTENTOS procesos
+ * se da por erróneo.
+ *
+ * @author Álvaro Sánchez Mateos
+ */
+public final class ShardedRecognizer {
+
+    /**
+     * Arranca un proceso de reconocimiento que habla WorkerProtocol por su
+     * entrada y salida estándar.
+     */
+    @FunctionalInterface
+    public interface WorkerLauncher {
+
+        /**
+         * @return El proceso arrancado.
+         * @throws IOException Si no se puede arrancar.
+         */
+        Process start() throws IOException;
+    }
+
+    private static final String USO = "uso: java -cp cyk-asanchezm.jar es.ceu.gisi.modcomp.cyk_algorithm.cli.ShardedRecognizer\n"
+            + "           -g <gramática> [-p <procesos>] [-c <coste por lote>] [-r <reinicios>] [-o <salida>] [-m]\n"
+            + "           [-l <ms>] [--timeout <ms>] [fichero ...]\n"
+            + "  -g  fichero de gramática (formato 'S::=AB|a', ver GrammarFile)\n"
+            + "  -p  número de procesos (por defecto, los procesadores disponibles)\n"
+            + "  -c  coste estimado de cada lote, como suma de n³ (por defecto 16777216)\n"
+            + "  -r  reinicios permitidos por proceso (por defecto 3)\n"
+            + "  -o  fichero de salida (por defecto, la salida estándar)\n"
+            + "  -m  proyecta en memoria los ficheros de entrada\n"
+            + "  -l  tiempo máximo por palabra en milisegundos; si se agota, el resultado es 'limit'\n"
+            + "  --timeout  milisegundos sin respuesta a un lote (más los de -l por palabra) tras los\n"
+            + "      que se relanza el proceso (por defecto 60000)\n"
+            + "  sin ficheros, o con '-', se lee de la entrada estándar";
+
+    private static final int MAX_PALABRAS_LOTE = 4096;
+    private static final int EN_VUELO_POR_PROCESO = 2;
+    private static final int PENDIENTES_POR_PROCESO = 4;
+    private static final int MAX_INTENTOS = 3;
+    private static final long RESPUESTA_MILLIS = 60000;
+    private static final Lote FIN = new Lote(-1);
+
+    private final byte[] cabecera;
+    private final int procesos;
+    private final long costeLote;
+    private final long limiteMillis;
+    private final long respuestaMillis;
+    private final int maxReinicios;
+    private final WorkerLauncher lanzador;
+    private final LinkedBlockingQueue<Evento> eventos;
+    private long palabras;
+    private long aceptadas;
+    private long rechazadas;
+    private long erroneas;
+    private long limitadas;
+    private long lotes;
+    private long reinicios;
+    private long bytesLeidos;
+
+    /**
+     * Reparte el trabajo entre procesos Java locales lanzados con
+     * localJvm().
+     *
+     * @param gramatica Algoritmo con la gramática ya cargada.
+     * @param procesos Número de procesos de reconocimiento.
+     * @param costeLote Coste estimado de cada lote (suma de n³).
+     * @param limiteMillis Tiempo máximo de análisis de cada palabra, o 0 si no
+     * hay límite.
+     * @throws IOException Si falla la copia de la gramática.
+     */
+    public ShardedRecognizer(CYKAlgorithm gramatica, int procesos, long costeLote, long limiteMillis)
+            throws IOException {
+        this(gramatica, procesos, costeLote, limiteMillis, 3, localJvm());
+    }
+
+    /**
+     * @param gramatica Algoritmo con la gramática ya cargada. Se envía la
+     * versión que tiene al crear el reconocedor.
+     * @param procesos Número de procesos de reconocimiento.
+     * @param costeLote Coste estimado de cada lote (suma de n³).
+     * @param limiteMillis Tiempo máximo de análisis de cada palabra, o 0 si no
+     * hay límite.
+     * @param maxReinicios Veces que se puede relanzar cada proceso.
+     * @param lanzador Arranca cada proceso.
+     * @throws IOException Si falla la copia de la gramática.
+     */
+    public ShardedRecognizer(CYKAlgorithm gramatica, int procesos, long costeLote, long limiteMillis,
+            int maxReinicios, WorkerLauncher lanzador) throws IOException {
+        this(gramatica, procesos, costeLote, limiteMillis, RESPUESTA_MILLIS, maxReinicios, lanzador);
+    }
+
+    /**
+     * @param gramatica Algoritmo con la gramática ya cargada. Se envía la
+     * versión que tiene al crear el reconocedor.
+     * @param procesos Número de procesos de reconocimiento.
+     * @param costeLote Coste estimado de cada lote (suma de n³).
+     * @param limiteMillis Tiempo máximo de análisis de cada palabra, o 0 si no
+     * hay límite.
+     * @param respuestaMillis Tiempo que se espera la respuesta a un lote,
+     * además de limiteMillis por palabra, antes de dar el proceso por colgado.
+     * @param maxReinicios Veces que se puede relanzar cada proceso.
+     * @param lanzador Arranca cada proceso.
+     * @throws IOException Si falla la copia de la gramática.
+     */
+    public ShardedRecognizer(CYKAlgorithm gramatica, int procesos, long costeLote, long limiteMillis,
+            long respuestaMillis, int maxReinicios, WorkerLauncher lanzador) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream datos = new DataOutputStream(bytes);
+        datos.writeInt(WorkerProtocol.MAGIA);
+        GrammarSnapshot.write(gramatica, datos);
+        datos.writeLong(limiteMillis);
+        datos.flush();
+        this.cabecera = bytes.toByteArray();
+        this.procesos = procesos;
+        this.costeLote = costeLote;
+        this.limiteMillis = limiteMillis;
+        this.respuestaMillis = respuestaMillis;
+        this.maxReinicios = maxReinicios;
+        this.lanzador = lanzador;
+        this.eventos = new LinkedBlockingQueue();
+    }
+
+    /**
+     * @return Un lanzador de procesos RecognitionWorker con la misma máquina
+     * virtual y el mismo classpath que el proceso actual.
+     */
+    public static WorkerLauncher localJvm() {
+        return () -> {
+            ArrayList<String> comando = new ArrayList();
+            comando.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+            if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+                comando.add("--add-modules");
+                comando.add("jdk.incubator.vector");
+            }
+            String kernel = System.getProperty("cyk.kernel");
+            if (kernel != null) {
+                comando.add("-Dcyk.kernel=" + kernel);
+            }
+            comando.add("-cp");
+            comando.add(System.getProperty("java.class.path"));
+            comando.add(RecognitionWorker.class.getName());
+            return new ProcessBuilder(comando).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        };
+    }
+
+    /**
+     * Reconoce todas las palabras del canal (una por línea) y escribe una
+     * línea "palabra\tresultado" por cada una, como BatchRecognizer.
+     *
+     * @param entrada Canal de palabras; se lee hasta el final y se cierra.
+     * @param salida Canal donde se escriben los resultados.
+     * @throws IOException Si falla la lectura, la escritura o no queda ningún
+     * proceso de reconocimiento.
+     * @throws InterruptedException Si se interrumpe la espera de resultados.
+     */
+    public void run(ReadableByteChannel entrada, WritableByteChannel salida) throws IOException, InterruptedException {
+        run(Collections.singletonList(WordReader.fromChannel(entrada)), salida);
+    }
+
+    /**
+     * @return Cuántas veces se ha relanzado algún proceso.
+     */
+    public long getRestarts() {
+        return this.reinicios;
+    }
+
+    /**
+     * @return Cuántas palabras se han escrito.
+     */
+    public long getWordCount() {
+        return this.palabras;
+    }
+
+    void run(List<WordReader> entradas, WritableByteChannel salida) throws IOException, InterruptedException {
+        Trabajador[] trabajadores = new Trabajador[this.procesos];
+        ArrayDeque<Lote> pendientes = new ArrayDeque();
+        PriorityQueue<Lote> reintentos = new PriorityQueue(Comparator.comparingLong((Lote lote) -> lote.numero));
+        Iterator<WordReader> lectores = entradas.iterator();
+        WordReader lector = null;
+        boolean finEntrada = false;
+
+        try {
+            for (int indice = 0; indice < trabajadores.length; indice++) {
+                trabajadores[indice] = new Trabajador();
+                arrancar(trabajadores[indice]);
+            }
+
+            while (true) {
+                // Escribir antes de repartir, para que los lotes ya escritos
+                // dejen sitio a otros nuevos.
+                while (!pendientes.isEmpty() && (pendientes.peek().resultados != null)) {
+                    escribir(pendientes.poll(), salida);
+                }
+
+                // Repartir: primero los lotes de procesos caídos, luego lotes
+                // nuevos mientras quepan.
+                Trabajador destino;
+                while ((destino = elegir(trabajadores)) != null) {
+                    Lote lote = reintentos.poll();
+                    if (lote == null) {
+                        if (finEntrada || (pendientes.size() >= PENDIENTES_POR_PROCESO * this.procesos)) {
+                            break;
+                        }
+                        lote = new Lote(this.lotes++);
+                        while ((lote.tamanio < MAX_PALABRAS_LOTE) && (lote.coste < this.costeLote)) {
+                            if (lector == null) {
+                                if (!lectores.hasNext()) {
+                                    finEntrada = true;
+                                    break;
+                                }
+                                lector = lectores.next();
+                            }
+                            String palabra = lector.next();
+                            if (palabra == null) {
+                                this.bytesLeidos += lector.bytesRead();
+                                lector.close();
+                                lector = null;
+                            } else {
+                                lote.anadir(palabra);
+                            }
+                        }
+                        if (lote.tamanio == 0) {
+                            this.lotes--;
+                            break;
+                        }
+                        pendientes.add(lote);
+                    }
+                    destino.asignar(lote, plazo(lote));
+                }
+
+                if (finEntrada && pendientes.isEmpty()) {
+                    break;
+                }
+                boolean quedanProcesos = false;
+                for (Trabajador trabajador : trabajadores) {
+                    quedanProcesos |= (trabajador.conexion != null);
+                }
+                if (!quedanProcesos) {
+                    throw new IOException("No queda ningún proceso de reconocimiento");
+                }
+
+                // Esperar al siguiente resultado, como mucho hasta el primer
+                // plazo que vence; los procesos que lo han agotado se retiran.
+                long espera = -1;
+                long ahora = System.nanoTime();
+                for (Trabajador trabajador : trabajadores) {
+                    if ((trabajador.conexion != null) && !trabajador.enVuelo.isEmpty()) {
+                        long resto = Math.max(0, trabajador.limite - ahora);
+                        espera = (espera < 0) ? resto : Math.min(espera, resto);
+                    }
+                }
+                Evento evento = (espera < 0) ? this.eventos.take()
+                        : this.eventos.poll(espera, TimeUnit.NANOSECONDS);
+                if (evento != null) {
+                    procesar(evento, reintentos);
+                }
+                ahora = System.nanoTime();
+                for (Trabajador trabajador : trabajadores) {
+                    if ((trabajador.conexion != null) && !trabajador.enVuelo.isEmpty()
+                            && (trabajador.limite - ahora <= 0)) {
+                        System.err.println("El proceso no responde a tiempo; se relanza");
+                        retirar(trabajador, reintentos);
+                    }
+                }
+            }
+        } finally {
+            if (lector != null) {
+                lector.close();
+            }
+            while (lectores.hasNext()) {
+                lectores.next().close();
+            }
+            for (Trabajador trabajador : trabajadores) {
+                if ((trabajador != null) && (trabajador.conexion != null)) {
+                    trabajador.conexion.cerrar();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return El proceso vivo con hueco y menos coste pendiente, o null si
+     * todos están llenos.
+     */
+    private static Trabajador elegir(Trabajador[] trabajadores) {
+        Trabajador elegido = null;
+        for (Trabajador trabajador : trabajadores) {
+            if ((trabajador.conexion != null) && (trabajador.enVuelo.size() < EN_VUELO_POR_PROCESO)
+                    && ((elegido == null) || (trabajador.costeEnVuelo < elegido.costeEnVuelo))) {
+                elegido = trabajador;
+            }
+        }
+        return elegido;
+    }
+
+    /**
+     * @return Nanosegundos que se esperan los resultados del lote desde que
+     * es el más antiguo de su proceso, acotados para que sumarlos a
+     * System.nanoTime no desborde.
+     */
+    private long plazo(Lote lote) {
+        long millis;
+        try {
+            millis = Math.addExact(this.respuestaMillis, Math.multiplyExact(lote.tamanio, this.limiteMillis));
+        } catch (ArithmeticException e) {
+            millis = Long.MAX_VALUE;
+        }
+        return Math.min(TimeUnit.MILLISECONDS.toNanos(millis), Long.MAX_VALUE / 4);
+    }
+
+    private void arrancar(Trabajador trabajador) throws IOException {
+        trabajador.conexion = new Conexion(trabajador, this.lanzador.start());
+    }
+
+    private void procesar(Evento evento, PriorityQueue<Lote> reintentos) {
+        Trabajador trabajador = evento.conexion.trabajador;
+        if (trabajador.conexion != evento.conexion) {
+            // Evento de un proceso que ya se ha sustituido.
+            return;
+        }
+        if (evento.resultados != null) {
+            Lote lote = trabajador.enVuelo.remove(evento.lote);
+            if ((lote != null) && (evento.resultados.length == lote.tamanio)) {
+                lote.resultados = evento.resultados;
+                trabajador.costeEnVuelo -= lote.coste;
+                if (!trabajador.enVuelo.isEmpty()) {
+                    Lote siguiente = trabajador.enVuelo.values().iterator().next();
+                    trabajador.limite = System.nanoTime() + plazo(siguiente);
+                }
+                return;
+            }
+            if (lote != null) {
+                trabajador.enVuelo.put(lote.numero, lote);
+            }
+        }
+
+        // El proceso ha terminado o ha respondido algo que no se esperaba.
+        retirar(trabajador, reintentos);
+    }
+
+    /**
+     * Mata el proceso del trabajador, reparte de nuevo sus lotes sin
+     * responder y lo relanza si le quedan reinicios.
+     */
+    private void retirar(Trabajador trabajador, PriorityQueue<Lote> reintentos) {
+        trabajador.conexion.matar();
+        trabajador.conexion = null;
+        for (Lote lote : trabajador.enVuelo.values()) {
+            if (++lote.intentos >= MAX_INTENTOS) {
+                lote.resultados = new byte[lote.tamanio];
+                Arrays.fill(lote.resultados, WorkerProtocol.ERROR);
+            } else {
+                reintentos.add(lote);
+            }
+        }
+        trabajador.enVuelo.clear();
+        trabajador.costeEnVuelo = 0;
+        if (trabajador.reinicios < this.maxReinicios) {
+            trabajador.reinicios++;
+            this.reinicios++;
+            try {
+                arrancar(trabajador);
+            } catch (IOException e) {
+                System.err.println("No se puede relanzar el proceso: " + e.getMessage());
+            }
+        }
+    }
+
+    private void escribir(Lote lote, WritableByteChannel salida) throws IOException {
+        StringBuilder texto = new StringBuilder(lote.tamanio * 16);
+        for (int indice = 0; indice < lote.tamanio; indice++) {
+            byte resultado = lote.resultados[indice];
+            texto.append(lote.palabras[indice]).append('\t').append(WorkerProtocol.name(resultado)).append('\n');
+            switch (resultado) {
+                case WorkerProtocol.TRUE:
+                    this.aceptadas++;
+                    break;
+                case WorkerProtocol.FALSE:
+                    this.rechazadas++;
+                    break;
+                case WorkerProtocol.LIMIT:
+                    this.limitadas++;
+                    break;
+                default:
+                    this.erroneas++;
+            }
+        }
+        ByteBuffer datos = ByteBuffer.wrap(texto.toString().getBytes(StandardCharsets.UTF_8));
+        while (datos.hasRemaining()) {
+            salida.write(datos);
+        }
+        this.palabras += lote.tamanio;
+    }
+
+    /**
+     * Palabras de un lote, su coste estimado y, cuando llegan, sus
+     * resultados.
+     */
+    private static final class Lote {
+
+        private final long numero;
+        private String[] palabras;
+        private int tamanio;
+        private long coste;
+        private int intentos;
+        private byte[] resultados;
+
+        private Lote(long numero) {
+            this.numero = numero;
+            this.palabras = new String[64];
+        }
+
+        private void anadir(String palabra) {
+            if (this.tamanio == this.palabras.length) {
+                this.palabras = Arrays.copyOf(this.palabras, 2 * this.tamanio);
+            }
+            this.palabras[this.tamanio++] = palabra;
+            long longitud = palabra.length();
+            this.coste += Math.max(1, longitud * longitud * longitud);
+        }
+    }
+
+    /**
+     * Un puesto de proceso de reconocimiento: el proceso actual (null si se
+     * ha retirado), los lotes que tiene sin responder, en orden de envío, y
+     * el instante (System.nanoTime) en que vence el plazo del más antiguo.
+     * Sólo lo usa el hilo coordinador.
+     */
+    private static final class Trabajador {
+
+        private Conexion conexion;
+        private final LinkedHashMap<Long, Lote> enVuelo = new LinkedHashMap();
+        private long costeEnVuelo;
+        private long limite;
+        private int reinicios;
+
+        private void asignar(Lote lote, long plazo) {
+            if (this.enVuelo.isEmpty()) {
+                this.limite = System.nanoTime() + plazo;
+            }
+            this.enVuelo.put(lote.numero, lote);
+            this.costeEnVuelo += lote.coste;
+            this.conexion.porEnviar.add(lote);
+        }
+    }
+
+    /**
+     * Resultados de un lote, o la caída del proceso si resultados es null.
+     */
+    private static final class Evento {
+
+        private final Conexion conexion;
+        private final long lote;
+        private final byte[] resultados;
+
+        private Evento(Conexion conexion, long lote, byte[] resultados) {
+            this.conexion = conexion;
+            this.lote = lote;
+            this.resultados = resultados;
+        }
+    }
+
+    /**
+     * Un proceso arrancado, con un hilo que le escribe los lotes y otro que
+     * lee sus resultados, para que el coordinador nunca se bloquee en sus
+     * tuberías.
+     */
+    private final class Conexion {
+
+        private final Trabajador trabajador;
+        private final Process proceso;
+        private final LinkedBlockingQueue<Lote> porEnviar;
+
+        private Conexion(Trabajador trabajador, Process proceso) {
+            this.trabajador = trabajador;
+            this.proceso = proceso;
+            this.porEnviar = new LinkedBlockingQueue();
+
+            Thread escritor = new Thread(this::enviar, "cyk-coordinador-envio");
+            escritor.setDaemon(true);
+            escritor.start();
+            Thread lector = new Thread(this::recibir, "cyk-coordinador-recepcion");
+            lector.setDaemon(true);
+            lector.start();
+        }
+
+        private void enviar() {
+            try (DataOutputStream salida = new DataOutputStream(
+                    new BufferedOutputStream(this.proceso.getOutputStream(), 1 << 16))) {
+                salida.write(ShardedRecognizer.this.cabecera);
+                salida.flush();
+                Lote lote;
+                while ((lote = this.porEnviar.take()) != FIN) {
+                    WorkerProtocol.writeWords(salida, lote.numero, lote.palabras, lote.tamanio);
+                }
+            } catch (IOException e) {
+                ShardedRecognizer.this.eventos.add(new Evento(this, -1, null));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void recibir() {
+            try (DataInputStream entrada = new DataInputStream(
+                    new BufferedInputStream(this.proceso.getInputStream(), 1 << 16))) {
+                while (true) {
+                    long lote = entrada.readLong();
+                    int tamanio = entrada.readInt();
+                    if ((tamanio < 0) || (tamanio > MAX_PALABRAS_LOTE)) {
+                        break;
+                    }
+                    byte[] resultados = new byte[tamanio];
+                    entrada.readFully(resultados);
+                    ShardedRecognizer.this.eventos.add(new Evento(this, lote, resultados));
+                }
+            } catch (IOException e) {
+                // Fin del proceso: se notifica igual que una respuesta errónea.
+            }
+            ShardedRecognizer.this.eventos.add(new Evento(this, -1, null));
+        }
+
+        /**
+         * Cierra la entrada del proceso, para que termine, y lo mata si no lo
+         * hace en poco tiempo.
+         */
+        private void cerrar() {
+            this.porEnviar.add(FIN);
+            try {
+                if (!this.proceso.waitFor(2, TimeUnit.SECONDS)) {
+                    this.proceso.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                this.proceso.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void matar() {
+            this.porEnviar.add(FIN);
+            this.proceso.destroyForcibly();
+        }
+    }
+
+    public static void main(String[] args) {
+        Path gramatica = null;
+        Path fichSalida = null;
+        int procesos = Runtime.getRuntime().availableProcessors();
+        long costeLote = 1L << 24;
+        int maxReinicios = 3;
+        boolean proyectar = false;
+        long limiteMillis = 0;
+        long respuestaMillis = RESPUESTA_MILLIS;
+        List<String> ficheros = new ArrayList();
+
+        try {
+            for (int indice = 0; indice < args.length; indice++) {
+                switch (args[indice]) {
+                    case "-g":
+                        gramatica = Paths.get(args[++indice]);
+                        break;
+                    case "-p":
+                        procesos = Integer.parseInt(args[++indice]);
+                        break;
+                    case "-c":
+                        costeLote = Long.parseLong(args[++indice]);
+                        break;
+                    case "-r":
+                        maxReinicios = Integer.parseInt(args[++indice]);
+                        break;
+                    case "-o":
+                        fichSalida = Paths.get(args[++indice]);
+                        break;
+                    case "-m":
+                        proyectar = true;
+                        break;
+                    case "-l":
+                        limiteMillis = Long.parseLong(args[++indice]);
+                        break;
+                    case "--timeout":
+                        respuestaMillis = Long.parseLong(args[++indice]);
+                        break;
+                    default:
+                        // Una opción desconocida (como el -t de hilos de los
+                        // otros programas) no se toma por un fichero.
+                        if (args[indice].startsWith("-") && !args[indice].equals("-")) {
+                            throw new IllegalArgumentException(args[indice]);
+                        }
+                        ficheros.add(args[indice]);
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+            gramatica = null;
+        }
+        if ((gramatica == null) || (procesos < 1) || (costeLote < 1) || (maxReinicios < 0) || (limiteMillis < 0)
+                || (respuestaMillis < 1)) {
+            System.err.println(USO);
+            System.exit(2);
+        }
+        if (ficheros.isEmpty()) {
+            ficheros.add("-");
+        }
+
+        try {
+            CYKAlgorithm algoritmo = new CYKAlgorithm();
+            GrammarFile.load(gramatica, algoritmo);
+
+            List<WordReader> entradas = new ArrayList();
+            for (String fichero : ficheros) {
+                if (fichero.equals("-")) {
+                    entradas.add(WordReader.fromChannel(Channels.newChannel(System.in)));
+                } else if (proyectar) {
+                    entradas.add(WordReader.mapping(Paths.get(fichero)));
+                } else {
+                    entradas.add(WordReader.fromChannel(FileChannel.open(Paths.get(fichero))));
+                }
+            }
+
+            WritableByteChannel salida = (fichSalida != null)
+                    ? new FileOutputStream(fichSalida.toFile()).getChannel()
+                    : Channels.newChannel(System.out);
+            ShardedRecognizer coordinador = new ShardedRecognizer(algoritmo, procesos, costeLote, limiteMillis,
+                    respuestaMillis, maxReinicios, localJvm());
+            long inicio = System.nanoTime();
+            try (WritableByteChannel canal = salida) {
+                coordinador.run(entradas, canal);
+            }
+            coordinador.imprimirResumen(System.nanoTime() - inicio);
+        } catch (CYKAlgorithmException e) {
+            System.err.println("Gramática no válida: " + e.getMessage());
+            System.exit(1);
+        } catch (IOException e) {
+            System.err.println("Error de entrada/salida: " + e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.exit(1);
+        }
+    }
+
+    private void imprimirResumen(long nanos) {
+        double segundos = nanos / 1e9;
+        System.err.printf(Locale.ROOT, "palabras=%d aceptadas=%d rechazadas=%d erroneas=%d limitadas=%d%n",
+                this.palabras, this.aceptadas, this.rechazadas, this.erroneas, this.limitadas);
+        System.err.printf(Locale.ROOT, "tiempo=%.3fs palabras/s=%.0f MB/s=%.2f procesos=%d lotes=%d reinicios=%d%n",
+                segundos, this.palabras / segundos, this.bytesLeidos / 1e6 / segundos, this.procesos, this.lotes,
+                this.reinicios);
+    }
+}
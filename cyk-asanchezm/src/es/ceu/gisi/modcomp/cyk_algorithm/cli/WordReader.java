@@ -0,0 +1,177 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.cli;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Lector de palabras (una por línea, en UTF-8) sobre canales NIO. Puede leer
+ * de cualquier canal mediante un buffer directo reutilizado, o de un fichero
+ * proyectado en memoria por ventanas, lo que permite recorrer ficheros de
+ * varios GB sin copiarlos al heap.
+ *
+ * @author Álvaro Sánchez Mateos
+ */
+final class WordReader implements Closeable {
+
+    private static final int TAMANIO_BUFFER = 1 << 20;
+    private static final long TAMANIO_VENTANA = 1L << 28;
+
+    private final ReadableByteChannel canal;
+    private final FileChannel fichero;
+    private final long tamanioFichero;
+    private ByteBuffer buffer;
+    private long inicioVentana;
+    private long tamanioVentana;
+    private boolean finCanal;
+    private byte[] linea;
+    private long bytesLeidos;
+
+    private WordReader(ReadableByteChannel canal, FileChannel fichero) throws IOException {
+        this.canal = canal;
+        this.fichero = fichero;
+        this.linea = new byte[256];
+        this.bytesLeidos = 0;
+        this.finCanal = false;
+        if (fichero != null) {
+            this.tamanioFichero = fichero.size();
+            this.tamanioVentana = TAMANIO_VENTANA;
+            this.inicioVentana = 0;
+            proyectarVentana();
+        } else {
+            this.tamanioFichero = -1;
+            this.buffer = ByteBuffer.allocateDirect(TAMANIO_BUFFER);
+            this.buffer.flip();
+        }
+    }
+
+    /**
+     * Crea un lector que va llenando un buffer directo desde el canal.
+     *
+     * @param canal El canal de entrada, por ejemplo la entrada estándar.
+     * @return El lector.
+     * @throws IOException Si falla la preparación del lector.
+     */
+    static WordReader fromChannel(ReadableByteChannel canal) throws IOException {
+        return new WordReader(canal, null);
+    }
+
+    /**
+     * Crea un lector que proyecta el fichero en memoria por ventanas.
+     *
+     * @param ruta El fichero de palabras.
+     * @return El lector.
+     * @throws IOException Si no se puede abrir el fichero.
+     */
+    static WordReader mapping(Path ruta) throws IOException {
+        FileChannel fichero = FileChannel.open(ruta, StandardOpenOption.READ);
+        return new WordReader(fichero, fichero);
+    }
+
+    /**
+     * Devuelve la siguiente palabra, sin el salto de línea (ni el '\r' final si
+     * lo hubiera), o null si se ha llegado al final de la entrada.
+     *
+     * @return La palabra leída o null.
+     * @throws IOException Si falla la lectura.
+     */
+    String next() throws IOException {
+        int desde = this.buffer.position();
+        while (true) {
+            int limite = this.buffer.limit();
+            for (int indice = desde; indice < limite; indice++) {
+                if (this.buffer.get(indice) == '\n') {
+                    return extraerLinea(indice, indice + 1);
+                }
+            }
+            desde = limite - this.buffer.position();
+            if (!rellenar()) {
+                if (this.buffer.hasRemaining()) {
+                    return extraerLinea(this.buffer.limit(), this.buffer.limit());
+                }
+                return null;
+            }
+            desde = this.buffer.position() + desde;
+        }
+    }
+
+    /**
+     * @return Los bytes consumidos hasta el momento, incluidos los saltos de
+     * línea.
+     */
+    long bytesRead() {
+        return this.bytesLeidos;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.canal.close();
+    }
+
+    private String extraerLinea(int finLinea, int siguiente) {
+        int inicio = this.buffer.position();
+        int longitud = finLinea - inicio;
+        if ((longitud > 0) && (this.buffer.get(finLinea - 1) == '\r')) {
+            longitud--;
+        }
+        if (longitud > this.linea.length) {
+            this.linea = new byte[Math.max(longitud, this.linea.length * 2)];
+        }
+        this.buffer.get(inicio, this.linea, 0, longitud);
+        this.buffer.position(siguiente);
+        this.bytesLeidos += siguiente - inicio;
+
+        return new String(this.linea, 0, longitud, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Hace sitio para más datos conservando la línea a medio leer.
+     *
+     * @return FALSE si ya no quedan datos por leer.
+     */
+    private boolean rellenar() throws IOException {
+        if (this.fichero != null) {
+            long inicio = this.inicioVentana + this.buffer.position();
+            if (this.inicioVentana + this.buffer.limit() >= this.tamanioFichero) {
+                return false;
+            }
+            if (this.buffer.position() == 0) {
+                // La línea no cabe en la ventana: se agranda.
+                this.tamanioVentana = Math.min(this.tamanioVentana * 2, Integer.MAX_VALUE);
+            }
+            this.inicioVentana = inicio;
+            proyectarVentana();
+            return true;
+        }
+
+        if (this.finCanal) {
+            return false;
+        }
+        if (this.buffer.position() == 0 && this.buffer.limit() == this.buffer.capacity()) {
+            ByteBuffer mayor = ByteBuffer.allocateDirect(this.buffer.capacity() * 2);
+            mayor.put(this.buffer);
+            this.buffer = mayor;
+        } else {
+            this.buffer.compact();
+        }
+        int leidos = 0;
+        while (leidos == 0) {
+            leidos = this.canal.read(this.buffer);
+        }
+        if (leidos < 0) {
+            this.finCanal = true;
+        }
+        this.buffer.flip();
+        return leidos > 0;
+    }
+
+    private void proyectarVentana() throws IOException {
+        long longitud = Math.min(this.tamanioVentana, this.tamanioFichero - this.inicioVentana);
+        this.buffer = this.fichero.map(FileChannel.MapMode.READ_ONLY, this.inicioVentana, longitud);
+    }
+}
@@ -0,0 +1,72 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.cli;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Protocolo entre ShardedRecognizer y sus procesos RecognitionWorker, sobre
+ * la entrada y la salida estándar del proceso. Al arrancar, el coordinador
+ * envía la cabecera (MAGIA, la gramática con GrammarSnapshot y el tiempo
+ * máximo por palabra en milisegundos). Después envía lotes: su número, el
+ * número de palabras y cada palabra en UTF-8 precedida de su longitud en
+ * bytes. Por cada lote el proceso responde con su número, el número de
+ * palabras y un byte de resultado por palabra. Para terminar, el coordinador
+ * cierra la entrada del proceso.
+ *
+ * @author Álvaro Sánchez Mateos
+ */
+final class WorkerProtocol {
+
+    static final int MAGIA = 0x43594B31;
+
+    static final byte FALSE = 0;
+    static final byte TRUE = 1;
+    static final byte ERROR = 2;
+    static final byte LIMIT = 3;
+
+    private WorkerProtocol() {
+    }
+
+    static void writeWords(DataOutputStream salida, long lote, String[] palabras, int tamanio) throws IOException {
+        salida.writeLong(lote);
+        salida.writeInt(tamanio);
+        for (int indice = 0; indice < tamanio; indice++) {
+            byte[] bytes = palabras[indice].getBytes(StandardCharsets.UTF_8);
+            salida.writeInt(bytes.length);
+            salida.write(bytes);
+        }
+        salida.flush();
+    }
+
+    static String[] readWords(DataInputStream entrada, int tamanio) throws IOException {
+        String[] palabras = new String[tamanio];
+        byte[] bytes = new byte[64];
+        for (int indice = 0; indice < tamanio; indice++) {
+            int longitud = entrada.readInt();
+            if (longitud > bytes.length) {
+                bytes = new byte[Math.max(longitud, 2 * bytes.length)];
+            }
+            entrada.readFully(bytes, 0, longitud);
+            palabras[indice] = new String(bytes, 0, longitud, StandardCharsets.UTF_8);
+        }
+        return palabras;
+    }
+
+    /**
+     * @return El texto de un resultado en la salida de los reconocedores.
+     */
+    static String name(byte resultado) {
+        switch (resultado) {
+            case TRUE:
+                return "true";
+            case FALSE:
+                return "false";
+            case LIMIT:
+                return "limit";
+            default:
+                return "error";
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.service;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.CYKAlgorithm;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.CompiledGrammar;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reparte entre varios hilos trabajadores las palabras que llegan de forma
+ * concurrente para una misma gramática, en lotes, y elimina las repetidas
+ * dentro de cada lote: cada palabra distinta se reconoce una sola vez y el
+ * resultado se reparte entre todas las peticiones que la pidieron. No se
+ * comparte otro trabajo: cada palabra distinta se reconoce con su propia
+ * tabla, igual que sin lotes.
+ *
+ * Un trabajador recoge lo que ya haya en la cola (hasta maxLote palabras) y,
+ * si ventanaMicros es mayor que 0, espera hasta ese tiempo a que lleguen
+ * más. Esa espera sólo compensa si las peticiones concurrentes repiten
+ * palabras con frecuencia, porque con poco tráfico se suma entera a la
+ * latencia de cada petición; por eso el servidor no espera por defecto.
+ *
+ * Todos los trabajadores reconocen con la misma instancia de CYKAlgorithm,
+ * que no guarda estado de cada análisis. La gramática se puede recargar en
+ * caliente con reload: se compila en segundo plano y se publica de forma
+ * atómica, y cada palabra se reconoce con la versión publicada cuando empieza
+ * su análisis.
+ *
+ * @author Álvaro Sánchez Mateos
+ */
+final class GrammarBatcher {
+
+    private final LinkedBlockingQueue<Peticion> cola;
+    private final int maxLote;
+    private final long ventanaNanos;
+    private final ServiceMetrics metricas;
+    private final CYKAlgorithm publicada;
+    private final Thread[] trabajadores;
+    private volatile boolean activo;
+
+    /**
+     * @param nombre Nombre de la gramática, para los nombres de los hilos.
+     * @param gramatica Gramática ya cargada; se usa una instantánea, que
+     * comparten todos los trabajadores.
+     * @param hilos Número de hilos trabajadores.
+     * @param maxLote Número máximo de palabras por lote.
+     * @param ventanaMicros Tiempo máximo que se espera a que se llene un lote
+     * desde que llega su primera palabra.
+     * @param metricas Donde se anotan los lotes procesados.
+     */
+    GrammarBatcher(String nombre, CYKAlgorithm gramatica, int hilos, int maxLote, long ventanaMicros,
+            ServiceMetrics metricas) {
+        this.cola = new LinkedBlockingQueue();
+        this.maxLote = maxLote;
+        this.ventanaNanos = TimeUnit.MICROSECONDS.toNanos(ventanaMicros);
+        this.metricas = metricas;
+        this.activo = true;
+        // Se compila antes de arrancar los trabajadores para que la primera
+        // petición no espere a la compilación.
+        this.publicada = new CYKAlgorithm(gramatica);
+        this.publicada.getCompiledGrammar();
+        this.trabajadores = new Thread[hilos];
+        for (int indice = 0; indice < hilos; indice++) {
+            this.trabajadores[indice] = new Thread(this::trabajar, "cyk-lotes-" + nombre + "-" + indice);
+            this.trabajadores[indice].setDaemon(true);
+            this.trabajadores[indice].start();
+        }
+    }
+
+    /**
+     * Encola una palabra para reconocerla en el próximo lote.
+     *
+     * @param palabra La palabra a reconocer.
+     * @return Un futuro que se completa con el resultado de isDerived, o de
+     * forma excepcional con su CYKAlgorithmException.
+     */
+    CompletableFuture<Boolean> submit(String palabra) {
+        Peticion peticion = new Peticion(palabra);
+        if (!this.activo) {
+            peticion.resultado.completeExceptionally(new IllegalStateException("Servicio detenido"));
+            return peticion.resultado;
+        }
+        this.cola.add(peticion);
+        // Si stop() ha vaciado la cola entre la comprobación y la inserción,
+        // nadie va a recoger la petición: se retira y falla aquí.
+        if (!this.activo && this.cola.remove(peticion)) {
+            peticion.resultado.completeExceptionally(new IllegalStateException("Servicio detenido"));
+        }
+        return peticion.resultado;
+    }
+
+    /**
+     * @return La gramática compilada publicada, que comparten los
+     * trabajadores.
+     */
+    CompiledGrammar grammar() {
+        return this.publicada.getCompiledGrammar();
+    }
+
+    /**
+     * Sustituye la gramática sin detener los trabajadores ni hacer esperar a
+     * las peticiones (ver CYKAlgorithm.reload).
+     *
+     * @param gramatica La nueva gramática; se usa una instantánea.
+     * @return Un futuro que se completa con el número de la versión
+     * publicada.
+     */
+    CompletableFuture<Long> reload(CYKAlgorithm gramatica) {
+        return this.publicada.reload(gramatica);
+    }
+
+    /**
+     * @return El número de versión de la gramática publicada.
+     */
+    long version() {
+        return this.publicada.getVersion();
+    }
+
+    /**
+     * Detiene los trabajadores y hace fallar las peticiones pendientes y las
+     * que lleguen después.
+     */
+    void stop() {
+        this.activo = false;
+        for (Thread trabajador : this.trabajadores) {
+            trabajador.interrupt();
+        }
+        Peticion pendiente;
+        while ((pendiente = this.cola.poll()) != null) {
+            pendiente.resultado.completeExceptionally(new IllegalStateException("Servicio detenido"));
+        }
+    }
+
+    private void trabajar() {
+        ArrayList<Peticion> lote = new ArrayList();
+        HashMap<String, Object> resultados = new HashMap();
+        try {
+            while (this.activo) {
+                Peticion primera = this.cola.take();
+                lote.add(primera);
+                long limite = System.nanoTime() + this.ventanaNanos;
+                while (lote.size() < this.maxLote) {
+                    this.cola.drainTo(lote, this.maxLote - lote.size());
+                    long resto = limite - System.nanoTime();
+                    if ((lote.size() >= this.maxLote) || (resto <= 0)) {
+                        break;
+                    }
+                    Peticion siguiente = this.cola.poll(resto, TimeUnit.NANOSECONDS);
+                    if (siguiente == null) {
+                        break;
+                    }
+                    lote.add(siguiente);
+                }
+
+                try {
+                    procesar(lote, resultados);
+                } catch (RuntimeException e) {
+                    // Un fallo inesperado no debe dejar peticiones sin
+                    // responder ni acabar con el trabajador.
+                    for (Peticion peticion : lote) {
+                        peticion.resultado.completeExceptionally(e);
+                    }
+                } finally {
+                    lote.clear();
+                    resultados.clear();
+                }
+            }
+        } catch (InterruptedException e) {
+            for (Peticion peticion : lote) {
+                peticion.resultado.completeExceptionally(new IllegalStateException("Servicio detenido"));
+            }
+        }
+    }
+
+    private void procesar(ArrayList<Peticion> lote, HashMap<String, Object> resultados) {
+        for (Peticion peticion : lote) {
+            Object resultado = resultados.get(peticion.palabra);
+            if (resultado == null) {
+                try {
+                    // Una palabra vacía nunca se deriva de una gramática en FNC.
+                    resultado = !peticion.palabra.isEmpty() && this.publicada.isDerived(peticion.palabra);
+                } catch (CYKAlgorithmException | RuntimeException e) {
+                    resultado = e;
+                }
+                resultados.put(peticion.palabra, resultado);
+            }
+
+            if (resultado instanceof Exception) {
+                peticion.resultado.completeExceptionally((Exception) resultado);
+            } else {
+                peticion.resultado.complete((Boolean) resultado);
+            }
+        }
+        this.metricas.recordBatch(lote.size(), resultados.size());
+    }
+
+    private static final class Peticion {
+
+        private final String palabra;
+        private final CompletableFuture<Boolean> resultado;
+
+        private Peticion(String palabra) {
+            this.palabra = palabra;
+            this.resultado = new CompletableFuture();
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.CYKAlgorithm;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.CompiledGrammar;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.GrammarFile;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Servicio HTTP de reconocimiento basado en com.sun.net.httpserver, que sólo
+ * escucha en la interfaz local. Carga una o varias gramáticas con nombre y
+ * atiende:
+ *
+ * <ul>
+ * <li>GET /grammars: los nombres de las gramáticas cargadas.</li>
+ * <li>PUT /grammars/{nombre}: el cuerpo es una gramática en el formato de
+ * GrammarFile; la carga o, si ya existe, la recarga en caliente sin
+ * interrumpir las peticiones en curso, y responde con su número de versión
+ * (400 si la gramática no es válida).</li>
+ * <li>POST /grammars/{nombre}/recognize: el cuerpo es una palabra; responde
+ * "true" o "false" (400 si la palabra no es válida).</li>
+ * <li>POST /grammars/{nombre}/batch: el cuerpo tiene una palabra por línea;
+ * responde una línea "true", "false" o "error" por palabra.</li>
+ * <li>GET /metrics: latencias y rendimiento del servicio, y tasa de rechazo
+ * del prefiltro de cada gramática.</li>
+ * </ul>
+ *
+ * Las palabras de peticiones concurrentes se reparten en lotes por gramática,
+ * en los que cada palabra distinta se reconoce una sola vez (ver
+ * GrammarBatcher). Las palabras se reciben sin los espacios en blanco de los
+ * extremos, tanto en recognize como en cada línea de batch. Las peticiones se atienden con hilos
+ * virtuales si la JVM los ofrece y, si no, con un pool de hilos normal.
+ *
+ * @author Álvaro Sánchez Mateos
+ */
+public final class RecognitionServer {
+
+    private static final String USO = "uso: java -cp cyk-asanchezm.jar " + RecognitionServer.class.getName()
+            + " [-p <puerto>] [-t <hilos por gramática>] [-l <máx. palabras por lote>]\n"
+            + "       [-w <espera de lote en µs, 0 por defecto>] -g <nombre>=<fichero> [-g <nombre>=<fichero> ...]";
+
+    private final int puerto;
+    private final int hilosPorGramatica;
+    private final int maxLote;
+    private final long ventanaMicros;
+    private final Map<String, GrammarBatcher> gramaticas;
+    private final ServiceMetrics metricas;
+    private HttpServer servidor;
+    private ExecutorService ejecutor;
+
+    /**
+     * @param puerto Puerto local donde escuchar, o 0 para uno libre.
+     * @param hilosPorGramatica Hilos de reconocimiento de cada gramática.
+     * @param maxLote Número máximo de palabras por lote.
+     * @param ventanaMicros Tiempo que se espera a que se llene un lote, o 0
+     * para procesar sin esperar lo que ya haya en la cola.
+     */
+    public RecognitionServer(int puerto, int hilosPorGramatica, int maxLote, long ventanaMicros) {
+        this.puerto = puerto;
+        this.hilosPorGramatica = hilosPorGramatica;
+        this.maxLote = maxLote;
+        this.ventanaMicros = ventanaMicros;
+        this.gramaticas = new ConcurrentHashMap();
+        this.metricas = new ServiceMetrics();
+    }
+
+    /**
+     * Publica una gramática con el nombre indicado. La gramática se copia, por
+     * lo que cambios posteriores en el original no afectan al servicio. Si ya
+     * había una gramática con ese nombre, se recarga en caliente: se compila
+     * en segundo plano y se sustituye de forma atómica, sin detener a los
+     * trabajadores ni hacer fallar las peticiones en curso.
+     *
+     * @param nombre Nombre con el que se accede a la gramática.
+     * @param gramatica Algoritmo con la gramática ya cargada.
+     * @return Un futuro que se completa con el número de versión de la
+     * gramática cuando ya está publicada.
+     */
+    public CompletableFuture<Long> addGrammar(String nombre, CYKAlgorithm gramatica) {
+        CompletableFuture<Long> resultado = new CompletableFuture();
+        this.gramaticas.compute(nombre, (clave, anterior) -> {
+            if (anterior != null) {
+                anterior.reload(gramatica).whenComplete((version, error) -> {
+                    if (error != null) {
+                        resultado.completeExceptionally(error);
+                    } else {
+                        resultado.complete(version);
+                    }
+                });
+                return anterior;
+            }
+            GrammarBatcher nuevo = new GrammarBatcher(nombre, gramatica, this.hilosPorGramatica, this.maxLote,
+                    this.ventanaMicros, this.metricas);
+            resultado.complete(nuevo.version());
+            return nuevo;
+        });
+        return resultado;
+    }
+
+    /**
+     * Arranca el servidor en 127.0.0.1 (o la dirección local equivalente).
+     *
+     * @throws IOException Si no se puede abrir el puerto.
+     */
+    public void start() throws IOException {
+        this.servidor = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), this.puerto), 0);
+        this.ejecutor = crearEjecutor();
+        this.servidor.setExecutor(this.ejecutor);
+        this.servidor.createContext("/grammars", this::atenderGramaticas);
+        this.servidor.createContext("/metrics", this::atenderMetricas);
+        this.servidor.start();
+    }
+
+    /**
+     * @return El puerto donde escucha el servidor ya arrancado.
+     */
+    public int getPort() {
+        return this.servidor.getAddress().getPort();
+    }
+
+    /**
+     * Detiene el servidor y los trabajadores de todas las gramáticas.
+     */
+    public void stop() {
+        if (this.servidor != null) {
+            this.servidor.stop(0);
+            this.ejecutor.shutdownNow();
+        }
+        for (GrammarBatcher lotes : this.gramaticas.values()) {
+            lotes.stop();
+        }
+    }
+
+    /**
+     * Usa un hilo virtual por petición si la JVM lo permite (Java 21 o
+     * posterior); el proyecto compila para Java 17, así que se busca por
+     * reflexión y, si no existe, se usa un pool de hilos daemon.
+     */
+    private static ExecutorService crearEjecutor() {
+        try {
+            Method virtuales = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) virtuales.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(tarea -> {
+                Thread hilo = new Thread(tarea, "cyk-http");
+                hilo.setDaemon(true);
+                return hilo;
+            });
+        }
+    }
+
+    private void atenderMetricas(HttpExchange intercambio) throws IOException {
+        long inicio = System.nanoTime();
+        int codigo = 200;
+        if (intercambio.getRequestMethod().equals("GET")) {
+            TreeMap<String, CompiledGrammar> compiladas = new TreeMap();
+            for (Map.Entry<String, GrammarBatcher> entrada : this.gramaticas.entrySet()) {
+                compiladas.put(entrada.getKey(), entrada.getValue().grammar());
+            }
+            responder(intercambio, 200, this.metricas.render(compiladas));
+        } else {
+            codigo = 405;
+            responder(intercambio, codigo, "Método no permitido\n");
+        }
+        this.metricas.recordRequest(System.nanoTime() - inicio, codigo == 200);
+    }
+
+    private void atenderGramaticas(HttpExchange intercambio) throws IOException {
+        long inicio = System.nanoTime();
+        int codigo;
+        try {
+            codigo = despachar(intercambio);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            codigo = 503;
+            responder(intercambio, codigo, "Servicio detenido\n");
+        } catch (RuntimeException e) {
+            codigo = 500;
+            responder(intercambio, codigo, "Error interno\n");
+        }
+        this.metricas.recordRequest(System.nanoTime() - inicio, codigo == 200);
+    }
+
+    private int despachar(HttpExchange intercambio) throws IOException, InterruptedException {
+        String[] partes = intercambio.getRequestURI().getPath().split("/");
+        String metodo = intercambio.getRequestMethod();
+
+        // partes = ["", "grammars"], ["", "grammars", nombre] o
+        // ["", "grammars", nombre, operación]
+        if (partes.length == 2) {
+            if (!metodo.equals("GET")) {
+                return responder(intercambio, 405, "Método no permitido\n");
+            }
+            StringBuilder nombres = new StringBuilder();
+            for (String nombre : new TreeSet<>(this.gramaticas.keySet())) {
+                nombres.append(nombre).append('\n');
+            }
+            return responder(intercambio, 200, nombres.toString());
+        }
+        if (partes.length == 3) {
+            if (!metodo.equals("PUT")) {
+                return responder(intercambio, 405, "Método no permitido\n");
+            }
+            CYKAlgorithm nueva = new CYKAlgorithm();
+            String cuerpo = new String(intercambio.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            try {
+                GrammarFile.read(new BufferedReader(new StringReader(cuerpo)), nueva);
+            } catch (CYKAlgorithmException e) {
+                return responder(intercambio, 400, "Gramática no válida\n");
+            }
+            try {
+                return responder(intercambio, 200, "version " + addGrammar(partes[2], nueva).get() + "\n");
+            } catch (ExecutionException e) {
+                return responder(intercambio, 500, "Error al compilar la gramática\n");
+            }
+        }
+        if (partes.length != 4) {
+            return responder(intercambio, 404, "Ruta desconocida\n");
+        }
+
+        GrammarBatcher lotes = this.gramaticas.get(partes[2]);
+        if (lotes == null) {
+            return responder(intercambio, 404, "Gramática desconocida\n");
+        }
+        if (!metodo.equals("POST")) {
+            return responder(intercambio, 405, "Método no permitido\n");
+        }
+        String cuerpo = new String(intercambio.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+
+        switch (partes[3]) {
+            case "recognize":
+                try {
+                    boolean derivada = lotes.submit(cuerpo.strip()).get();
+                    return responder(intercambio, 200, derivada + "\n");
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof CYKAlgorithmException) {
+                        return responder(intercambio, 400, "error\n");
+                    }
+                    return responder(intercambio, 500, "Error interno\n");
+                }
+            case "batch":
+                List<CompletableFuture<Boolean>> resultados = new ArrayList();
+                for (String palabra : cuerpo.split("\r?\n")) {
+                    resultados.add(lotes.submit(palabra.strip()));
+                }
+                StringBuilder respuesta = new StringBuilder(resultados.size() * 6);
+                for (CompletableFuture<Boolean> resultado : resultados) {
+                    try {
+                        respuesta.append(resultado.get()).append('\n');
+                    } catch (ExecutionException e) {
+                        respuesta.append("error\n");
+                    }
+                }
+                return responder(intercambio, 200, respuesta.toString());
+            default:
+                return responder(intercambio, 404, "Operación desconocida\n");
+        }
+    }
+
+    private static int responder(HttpExchange intercambio, int codigo, String texto) throws IOException {
+        byte[] cuerpo = texto.getBytes(StandardCharsets.UTF_8);
+        intercambio.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        intercambio.sendResponseHeaders(codigo, cuerpo.length);
+        try (OutputStream salida = intercambio.getResponseBody()) {
+            salida.write(cuerpo);
+        }
+        return codigo;
+    }
+
+    public static void main(String[] args) {
+        int puerto = 8080;
+        int hilos = Runtime.getRuntime().availableProcessors();
+        int maxLote = 256;
+        long ventana = 0;
+        RecognitionServer servidor = null;
+        List<String> gramaticas = new ArrayList();
+
+        try {
+            for (int indice = 0; indice < args.length; indice++) {
+                switch (args[indice]) {
+                    case "-p":
+                        puerto = Integer.parseInt(args[++indice]);
+                        break;
+                    case "-t":
+                        hilos = Integer.parseInt(args[++indice]);
+                        break;
+                    case "-l":
+                        maxLote = Integer.parseInt(args[++indice]);
+                        break;
+                    case "-w":
+                        ventana = Long.parseLong(args[++indice]);
+                        break;
+                    case "-g":
+                        gramaticas.add(args[++indice]);
+                        break;
+                    default:
+                        throw new IllegalArgumentException(args[indice]);
+                }
+            }
+        } catch (RuntimeException e) {
+            gramaticas.clear();
+        }
+        if (gramaticas.isEmpty() || (hilos < 1) || (maxLote < 1) || (ventana < 0)) {
+            System.err.println(USO);
+            System.exit(2);
+        }
+
+        try {
+            servidor = new RecognitionServer(puerto, hilos, maxLote, ventana);
+            for (String definicion : gramaticas) {
+                int igual = definicion.indexOf('=');
+                if (igual <= 0) {
+                    System.err.println(USO);
+                    System.exit(2);
+                }
+                CYKAlgorithm algoritmo = new CYKAlgorithm();
+                GrammarFile.load(Paths.get(definicion.substring(igual + 1)), algoritmo);
+                servidor.addGrammar(definicion.substring(0, igual), algoritmo);
+            }
+            servidor.start();
+            System.err.println("Escuchando en http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":"
+                    + servidor.getPort());
+        } catch (CYKAlgorithmException e) {
+            System.err.println("Gramática no válida: " + e.getMessage());
+            servidor.stop();
+            System.exit(1);
+        } catch (IOException e) {
+            System.err.println("Error de entrada/salida: " + e.getMessage());
+            servidor.stop();
+            System.exit(1);
+        }
+    }
+}
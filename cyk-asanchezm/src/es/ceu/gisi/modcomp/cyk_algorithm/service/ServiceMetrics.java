@@ -0,0 +1,140 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.service;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.CompiledGrammar;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas del servicio de reconocimiento: contadores de peticiones, palabras
+ * y lotes, y un histograma de latencias con cubos de potencias de dos (en
+ * microsegundos). Todas las operaciones son seguras entre hilos y no bloquean.
+ *
+ * @author Álvaro Sánchez Mateos
+ */
+final class ServiceMetrics {
+
+    private static final int CUBOS = 40;
+
+    private final long inicio;
+    private final LongAdder peticiones;
+    private final LongAdder errores;
+    private final LongAdder palabras;
+    private final LongAdder lotes;
+    private final LongAdder palabrasCompartidas;
+    private final AtomicLongArray latencias;
+
+    ServiceMetrics() {
+        this.inicio = System.nanoTime();
+        this.peticiones = new LongAdder();
+        this.errores = new LongAdder();
+        this.palabras = new LongAdder();
+        this.lotes = new LongAdder();
+        this.palabrasCompartidas = new LongAdder();
+        this.latencias = new AtomicLongArray(CUBOS);
+    }
+
+    /**
+     * Anota una petición HTTP terminada.
+     *
+     * @param nanos Tiempo transcurrido desde que llegó la petición.
+     * @param correcta FALSE si se respondió con un código de error.
+     */
+    void recordRequest(long nanos, boolean correcta) {
+        this.peticiones.increment();
+        if (!correcta) {
+            this.errores.increment();
+        }
+        long micros = Math.max(1, nanos / 1000);
+        int cubo = Math.min(CUBOS - 1, 63 - Long.numberOfLeadingZeros(micros));
+        this.latencias.incrementAndGet(cubo);
+    }
+
+    /**
+     * Anota un lote procesado por un GrammarBatcher.
+     *
+     * @param palabrasLote Palabras recibidas en el lote.
+     * @param distintas Palabras distintas, que son las que se han reconocido.
+     */
+    void recordBatch(int palabrasLote, int distintas) {
+        this.lotes.increment();
+        this.palabras.add(palabrasLote);
+        this.palabrasCompartidas.add(palabrasLote - distintas);
+    }
+
+    /**
+     * Devuelve las métricas en texto plano, una por línea con formato
+     * "nombre valor". Los contadores del prefiltro salen de las gramáticas
+     * compiladas, en total y por gramática.
+     *
+     * @param gramaticas Las gramáticas publicadas, por nombre.
+     * @return El texto de las métricas.
+     */
+    String render(Map<String, CompiledGrammar> gramaticas) {
+        double segundos = (System.nanoTime() - this.inicio) / 1e9;
+        long totalLotes = this.lotes.sum();
+        long totalPalabras = this.palabras.sum();
+        StringBuilder texto = new StringBuilder();
+        texto.append(String.format(Locale.ROOT, "uptime_seconds %.3f%n", segundos));
+        texto.append("requests ").append(this.peticiones.sum()).append('\n');
+        texto.append("request_errors ").append(this.errores.sum()).append('\n');
+        texto.append("words ").append(totalPalabras).append('\n');
+        texto.append("batches ").append(totalLotes).append('\n');
+        texto.append("shared_words ").append(this.palabrasCompartidas.sum()).append('\n');
+        texto.append(String.format(Locale.ROOT, "mean_batch_size %.2f%n",
+                (totalLotes == 0) ? 0.0 : (double) totalPalabras / totalLotes));
+        texto.append(String.format(Locale.ROOT, "words_per_second %.1f%n", totalPalabras / segundos));
+        texto.append("latency_p50_micros ").append(percentil(0.50)).append('\n');
+        texto.append("latency_p90_micros ").append(percentil(0.90)).append('\n');
+        texto.append("latency_p99_micros ").append(percentil(0.99)).append('\n');
+        texto.append("latency_max_micros ").append(percentil(1.0)).append('\n');
+
+        long comprobadas = 0;
+        long descartadas = 0;
+        for (CompiledGrammar gramatica : gramaticas.values()) {
+            comprobadas += gramatica.getPrefilterChecks();
+            descartadas += gramatica.getPrefilterRejections();
+        }
+        texto.append("prefilter_checks ").append(comprobadas).append('\n');
+        texto.append("prefilter_rejections ").append(descartadas).append('\n');
+        texto.append(String.format(Locale.ROOT, "prefilter_rejection_rate %.4f%n", tasa(descartadas, comprobadas)));
+        for (Map.Entry<String, CompiledGrammar> entrada : gramaticas.entrySet()) {
+            CompiledGrammar gramatica = entrada.getValue();
+            texto.append(String.format(Locale.ROOT, "prefilter_rejection_rate{grammar=\"%s\"} %.4f%n",
+                    entrada.getKey(), tasa(gramatica.getPrefilterRejections(), gramatica.getPrefilterChecks())));
+        }
+
+        return texto.toString();
+    }
+
+    private static double tasa(long parte, long total) {
+        return (total == 0) ? 0.0 : (double) parte / total;
+    }
+
+    /**
+     * Cota superior (el límite del cubo) del percentil indicado, o 0 si no se
+     * ha anotado ninguna petición.
+     */
+    private long percentil(double fraccion) {
+        long[] cuenta = new long[CUBOS];
+        long total = 0;
+        for (int cubo = 0; cubo < CUBOS; cubo++) {
+            cuenta[cubo] = this.latencias.get(cubo);
+            total += cuenta[cubo];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long objetivo = (long) Math.ceil(total * fraccion);
+        long acumulado = 0;
+        for (int cubo = 0; cubo < CUBOS; cubo++) {
+            acumulado += cuenta[cubo];
+            if ((acumulado >= objetivo) && (cuenta[cubo] > 0)) {
+                return 2L << cubo;
+            }
+        }
+        return 2L << (CUBOS - 1);
+    }
+}
@@ -0,0 +1,51 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.test;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.AlgorithmState;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.CYKAlgorithm;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Clase que testea la escritura de la tabla del algoritmo CYK, completa y en
+ * streaming.
+ *
+ * @author Álvaro Sánchez Mateos
+ */
+public class AlgorithmStateTest {
+
+    @Test
+    public void comprobarTablaEnStreaming() throws CYKAlgorithmException, IOException {
+        CYKAlgorithm cyk = Grammars.read(Grammars.EJEMPLO);
+
+        // Una fila por longitud de subcadena y, en cada casilla, los no
+        // terminales en orden de declaración.
+        String tabla = cyk.algorithmStateToString("baaba");
+        assertEquals("B\tAC\tAC\tB\tAC\t\nSA\tB\tSC\tSA\t\n\tB\tB\t\n\tSAC\t\nSAC\t\n", tabla);
+
+        StringWriter escritor = new StringWriter();
+        assertTrue(cyk.writeAlgorithmState("baaba", escritor));
+        assertEquals(tabla, escritor.toString());
+
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        assertTrue(cyk.writeAlgorithmState("baaba", salida));
+        assertEquals(tabla, salida.toString(StandardCharsets.UTF_8));
+
+        // La tabla devuelta no depende de lo que se analice después.
+        AlgorithmState estado = cyk.algorithmState("baaba");
+        assertFalse(cyk.isDerived("bbb"));
+        cyk.algorithmStateToString("ab");
+        assertTrue(estado.isDerived());
+        assertEquals(5, estado.getWordLength());
+        StringBuilder copia = new StringBuilder();
+        estado.writeTo(copia);
+        assertEquals(tabla, copia.toString());
+        assertEquals(tabla, estado.toString());
+    }
+}
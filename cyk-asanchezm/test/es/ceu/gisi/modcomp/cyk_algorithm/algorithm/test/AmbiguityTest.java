@@ -0,0 +1,94 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.test;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.Ambiguity;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.CYKAlgorithm;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.ParseLimits;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.ParseLimitExceededException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * Clase que testea el conteo de árboles de derivación y la detección de
+ * ambigüedad.
+ *
+ * @author Álvaro Sánchez Mateos
+ */
+public class AmbiguityTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Test
+    public void comprobarConteoDeDerivaciones() throws CYKAlgorithmException {
+        // a^n tiene tantos árboles como el número de Catalan C(n-1). B sólo
+        // está para que b sea un terminal de la gramática.
+        CYKAlgorithm cyk = Grammars.read(Grammars.CATALAN + "B::=b\n");
+
+        assertEquals(1, cyk.countDerivations("a", 10));
+        assertEquals(1, cyk.countDerivations("aa", 10));
+        assertEquals(2, cyk.countDerivations("aaa", 10));
+        assertEquals(5, cyk.countDerivations("aaaa", 10));
+        assertEquals(429, cyk.countDerivations("aaaaaaaa", 1000));
+        assertEquals(3, cyk.countDerivations("aaaa", 3));
+        assertEquals(7, cyk.countDerivations("a".repeat(200), 7));
+        assertEquals(0, cyk.countDerivations("ab", 10));
+
+        assertEquals(Ambiguity.UNAMBIGUOUS, cyk.ambiguity("aa"));
+        assertEquals(Ambiguity.AMBIGUOUS, cyk.ambiguity("aaa"));
+        assertEquals(Ambiguity.NOT_DERIVED, cyk.ambiguity("ba"));
+
+        thrown.expect(IllegalArgumentException.class);
+        cyk.countDerivations("aa", 0);
+    }
+
+    @Test
+    public void comprobarLimitesAlContar() throws CYKAlgorithmException {
+        CYKAlgorithm cyk = Grammars.read(Grammars.CATALAN);
+        String palabra = "a".repeat(200);
+
+        // Cuántas veces se consultan los límites al rellenar la tabla.
+        AtomicInteger consultas = new AtomicInteger();
+        assertTrue(cyk.isDerived(palabra, ParseLimits.NONE.withCancellation(() -> {
+            consultas.incrementAndGet();
+            return false;
+        })));
+        int enRelleno = consultas.get();
+
+        // La primera consulta después del relleno espera a que venza el plazo:
+        // el análisis se detiene durante el conteo, con la tabla completa.
+        AtomicInteger siguientes = new AtomicInteger();
+        try {
+            cyk.countDerivations(palabra, 7, ParseLimits.NONE.withTimeout(Duration.ofSeconds(1)).withCancellation(() -> {
+                if (siguientes.incrementAndGet() == enRelleno + 1) {
+                    esperar(1100);
+                }
+                return false;
+            }));
+            fail();
+        } catch (ParseLimitExceededException e) {
+            assertEquals(ParseLimitExceededException.Limit.DEADLINE, e.getLimit());
+            assertEquals(200, e.getCompletedLength());
+        }
+
+        // El presupuesto cubre el relleno y el conteo.
+        long operaciones = 199L * 200 * 201 / 6;
+        assertEquals(7, cyk.countDerivations(palabra, 7, ParseLimits.NONE.withMaxOperations(2 * operaciones)));
+        thrown.expect(ParseLimitExceededException.class);
+        cyk.countDerivations(palabra, 7, ParseLimits.NONE.withMaxOperations(2 * operaciones - 1));
+    }
+
+    private static void esperar(long milisegundos) {
+        try {
+            Thread.sleep(milisegundos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.test;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.CYKAlgorithm;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.CompiledGrammar;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.RecognitionEngine;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Clase que testea la tabla de bits de CYK: la poda, las casillas de varias
+ * palabras con cada núcleo de operaciones y el prefiltro.
+ *
+ * @author Álvaro Sánchez Mateos
+ */
+public class CYKChartTest {
+
+    @Test
+    public void comprobarDerivacionConPoda() throws CYKAlgorithmException {
+        // a^n b^n con un no terminal inalcanzable (D) y otro improductivo (E):
+        // la poda los descarta sin cambiar el resultado.
+        CYKAlgorithm cyk = Grammars.read(Grammars.ANBN + "S::=EB\nD::=SS|a\nE::=AE\n");
+
+        assertTrue(cyk.isDerived("ab"));
+        assertTrue(cyk.isDerived("aaaabbbb"));
+        assertFalse(cyk.isDerived("aaabbbb"));
+        assertFalse(cyk.isDerived("abab"));
+        assertFalse(cyk.isDerived("a"));
+    }
+
+    @Test
+    public void comprobarDerivacionConVariasPalabrasPorCasilla() throws CYKAlgorithmException {
+        // a^n b^n con 70 no terminales de relleno delante, para que las
+        // casillas ocupen dos longs y S, A, B y C caigan en el segundo. El
+        // resultado no depende de las operaciones de bits elegidas. Los no
+        // terminales sin producciones no se pueden escribir en un fichero de
+        // gramática, así que se declaran a mano.
+        String anterior = System.getProperty("cyk.kernel");
+        try {
+            for (String modo : new String[]{"scalar", "vector", "auto"}) {
+                System.setProperty("cyk.kernel", modo);
+                CYKAlgorithm cyk = new CYKAlgorithm();
+
+                int relleno = 0;
+                for (char simbolo = '\u00C0'; relleno < 70; simbolo++) {
+                    if (Character.isUpperCase(simbolo)) {
+                        cyk.addNonTerminal(simbolo);
+                        relleno++;
+                    }
+                }
+                cyk.addNonTerminal('S');
+                cyk.addNonTerminal('A');
+                cyk.addNonTerminal('B');
+                cyk.addNonTerminal('C');
+
+                cyk.addTerminal('a');
+                cyk.addTerminal('b');
+
+                cyk.setStartSymbol('S');
+
+                cyk.addProduction('S', "AB");
+                cyk.addProduction('S', "AC");
+                cyk.addProduction('C', "SB");
+                cyk.addProduction('A', "a");
+                cyk.addProduction('B', "b");
+
+                assertEquals(RecognitionEngine.CYK, cyk.getEngine());
+                assertTrue(cyk.isDerived("ab"));
+                assertTrue(cyk.isDerived("aaaaabbbbb"));
+                assertFalse(cyk.isDerived("aaaabbbbb"));
+                assertFalse(cyk.isDerived("abab"));
+            }
+        } finally {
+            if (anterior == null) {
+                System.clearProperty("cyk.kernel");
+            } else {
+                System.setProperty("cyk.kernel", anterior);
+            }
+        }
+    }
+
+    @Test
+    public void comprobarPrefiltro() throws CYKAlgorithmException {
+        CYKAlgorithm cyk = Grammars.read(Grammars.ANBN);
+
+        // "ba" empieza por b, "abab" tiene b seguida de a y "a" es más corta
+        // que cualquier palabra del lenguaje: las tres las descarta el
+        // prefiltro. "aabbb" lo pasa y la descarta la tabla.
+        assertFalse(cyk.isDerived("ba"));
+        assertFalse(cyk.isDerived("abab"));
+        assertFalse(cyk.isDerived("a"));
+        assertFalse(cyk.isDerived("aabbb"));
+        assertTrue(cyk.isDerived("aabb"));
+
+        CompiledGrammar compilada = cyk.getCompiledGrammar();
+        assertEquals(5, compilada.getPrefilterChecks());
+        assertEquals(3, compilada.getPrefilterRejections());
+
+        // Las copias comparten la gramática compilada y sus contadores.
+        new CYKAlgorithm(cyk).isDerived("bb");
+        assertEquals(6, compilada.getPrefilterChecks());
+        assertEquals(4, compilada.getPrefilterRejections());
+    }
+}
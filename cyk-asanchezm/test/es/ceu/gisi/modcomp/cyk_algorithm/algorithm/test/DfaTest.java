@@ -0,0 +1,133 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.test;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.CYKAlgorithm;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.RecognitionEngine;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.WordGenerator;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Clase que testea el reconocimiento de gramáticas regulares con un DFA.
+ *
+ * @author Álvaro Sánchez Mateos
+ */
+public class DfaTest {
+
+    @Test
+    public void comprobarMotorDeReconocimiento() throws CYKAlgorithmException {
+        // a*b: lineal por la derecha, se reconoce con el DFA.
+        CYKAlgorithm cyk = Grammars.read("S::=AS|b\nA::=a\n");
+
+        assertEquals(RecognitionEngine.DFA, cyk.getEngine());
+        assertTrue(cyk.isDerived("aaab"));
+        assertTrue(cyk.isDerived("b"));
+        assertFalse(cyk.isDerived("aba"));
+
+        // a^n b^n no es regular: se sigue usando CYK.
+        cyk = Grammars.read(Grammars.ANBN);
+
+        assertEquals(RecognitionEngine.CYK, cyk.getEngine());
+        assertTrue(cyk.isDerived("aaabbb"));
+        assertFalse(cyk.isDerived("aabbb"));
+    }
+
+    @Test
+    public void comprobarGramaticasRegulares() throws CYKAlgorithmException {
+        // a b*: lineal por la izquierda.
+        CYKAlgorithm cyk = Grammars.read("S::=SB|a\nB::=b\n");
+
+        assertEquals(RecognitionEngine.DFA, cyk.getEngine());
+        assertTrue(cyk.isDerived("a"));
+        assertTrue(cyk.isDerived("abbbb"));
+        assertFalse(cyk.isDerived("ba"));
+        assertFalse(cyk.isDerived("abab"));
+
+        // {a, ab, abb}: sin recursión, lenguaje finito.
+        cyk = Grammars.read("S::=AB|AC|a\nC::=BB\nA::=a\nB::=b\n");
+
+        assertEquals(RecognitionEngine.DFA, cyk.getEngine());
+        assertTrue(cyk.isDerived("a"));
+        assertTrue(cyk.isDerived("ab"));
+        assertTrue(cyk.isDerived("abb"));
+        assertFalse(cyk.isDerived("abbb"));
+        assertFalse(cyk.isDerived("b"));
+    }
+
+    @Test
+    public void comprobarLimiteDeEstados() throws CYKAlgorithmException {
+        // "El k-ésimo símbolo empezando por el final es una a": el DFA mínimo
+        // tiene 2^k estados. Con k = 11 cabe en el límite (4096 estados); con
+        // k = 13 no, y se vuelve a CYK con el mismo resultado.
+        CYKAlgorithm menor = Grammars.read(desdeElFinal(11));
+        CYKAlgorithm mayor = Grammars.read(desdeElFinal(13));
+
+        assertEquals(RecognitionEngine.DFA, menor.getEngine());
+        assertEquals(RecognitionEngine.CYK, mayor.getEngine());
+        assertTrue(mayor.isDerived("ba" + "b".repeat(12)));
+        assertFalse(mayor.isDerived("ab" + "b".repeat(12)));
+        assertTrue(menor.isDerived("bbba" + "b".repeat(10)));
+        assertFalse(menor.isDerived("bbab" + "b".repeat(10)));
+    }
+
+    @Test
+    public void comprobarDfaFrenteACyk() throws CYKAlgorithmException {
+        // La tabla completa de algorithmState siempre usa CYK: sirve de
+        // referencia para el DFA con palabras del lenguaje, negativos
+        // cercanos y palabras al azar.
+        String[] gramaticas = {
+            "S::=AS|b\nA::=a\n",
+            "S::=SB|a\nB::=b\n",
+            "S::=LR\nL::=LA|a\nR::=BR|b\nA::=a\nB::=b\n",
+            "S::=AB|AC|a\nC::=BB\nA::=a\nB::=b\n",
+            desdeElFinal(5)
+        };
+        Random aleatorio = new Random(3);
+        for (String texto : gramaticas) {
+            CYKAlgorithm cyk = Grammars.read(texto);
+            assertEquals(RecognitionEngine.DFA, cyk.getEngine());
+
+            WordGenerator generador = new WordGenerator(cyk, 24);
+            for (int longitud = 1; longitud <= 24; longitud++) {
+                for (int intento = 0; intento < 10; intento++) {
+                    if (generador.count(longitud).signum() > 0) {
+                        comprobarIgual(cyk, generador.sample(longitud, aleatorio));
+                        String negativa = generador.nearMiss(longitud, aleatorio);
+                        if (negativa != null) {
+                            comprobarIgual(cyk, negativa);
+                        }
+                    }
+                    StringBuilder palabra = new StringBuilder();
+                    for (int indice = 0; indice < longitud; indice++) {
+                        palabra.append(aleatorio.nextBoolean() ? 'a' : 'b');
+                    }
+                    comprobarIgual(cyk, palabra.toString());
+                }
+            }
+        }
+    }
+
+    private static void comprobarIgual(CYKAlgorithm cyk, String palabra) throws CYKAlgorithmException {
+        assertEquals(palabra, cyk.algorithmState(palabra).isDerived(), cyk.isDerived(palabra));
+    }
+
+    /**
+     * Gramática lineal por la derecha de las palabras sobre {a, b} cuyo
+     * k-ésimo símbolo empezando por el final es una a (k entre 2 y 13): S
+     * lee símbolos hasta elegir esa a, y los no terminales a partir de C
+     * generan exactamente 1, 2, ..., k - 1 símbolos.
+     */
+    private static String desdeElFinal(int k) {
+        StringBuilder texto = new StringBuilder();
+        char ultimo = (char) ('C' + k - 2);
+        texto.append("S::=XS|A").append(ultimo).append('\n');
+        texto.append("X::=a|b\nA::=a\nC::=a|b\n");
+        for (char actual = 'D'; actual <= ultimo; actual++) {
+            texto.append(actual).append("::=X").append((char) (actual - 1)).append('\n');
+        }
+        return texto.toString();
+    }
+}
@@ -0,0 +1,78 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.test;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.CYKAlgorithm;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.GrammarFile;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+/**
+ * Clase que testea la lectura de gramáticas con GrammarFile.
+ *
+ * @author Álvaro Sánchez Mateos
+ */
+public class GrammarFileTest {
+
+    @Test
+    public void comprobarCargarGramaticaDeFichero() throws CYKAlgorithmException {
+        CYKAlgorithm cyk = Grammars.read("# Gramática de ejemplo\n" + Grammars.EJEMPLO);
+
+        assertEquals("S::=AB|BC", cyk.getProductions('S'));
+        assertEquals("C::=AB|a", cyk.getProductions('C'));
+        assertTrue(cyk.isDerived("baaba"));
+        assertFalse(cyk.isDerived("bbb"));
+
+        CYKAlgorithm copia = new CYKAlgorithm(cyk);
+        cyk.removeGrammar();
+        assertTrue(copia.isDerived("baaba"));
+    }
+
+    @Test
+    public void comprobarCargaEnUnaSolaVersion() throws CYKAlgorithmException {
+        // Todas las combinaciones de 20 no terminales: 8020 producciones, que
+        // se publican en una sola versión.
+        CYKAlgorithm cyk = Grammars.read(Grammars.complete(20));
+        assertEquals("T::=a".length() + (3 * 400), cyk.getProductions('T').length());
+        assertTrue(cyk.isDerived("aaaaaaa"));
+
+        // Si una línea no es válida no se publica nada de la gramática.
+        CYKAlgorithm vacio = new CYKAlgorithm();
+        long version = vacio.getVersion();
+        try {
+            GrammarFile.read(new BufferedReader(new StringReader("S::=AB\nA::=a\nB::=bc\n")), vacio);
+            fail();
+        } catch (CYKAlgorithmException | IOException e) {
+        }
+        assertEquals(version, vacio.getVersion());
+        assertEquals("", vacio.getProductions('S'));
+    }
+
+    @Test
+    public void comprobarSimbolosNoValidos() throws IOException {
+        // El error señala la línea y el símbolo en lugar de aparecer después
+        // sin mensaje.
+        String[][] casos = {
+            {"S::=AB\nA::=a\nB::=1\n", "Línea 3: símbolo no válido '1'"},
+            {"# Comentario\nS::=A-\nA::=a\n", "Línea 2: símbolo no válido '-'"},
+            {"S::=AB|a\nb::=a\n", "Línea 2: 'b' no es un no terminal"},
+            {"S::=aB\n", "Línea 1: la producción 'aB' no está en FNC"},
+            {"S::=AB|\n", "Línea 1: la producción '' no está en FNC"}
+        };
+        for (String[] caso : casos) {
+            CYKAlgorithm cyk = new CYKAlgorithm();
+            try {
+                GrammarFile.read(new BufferedReader(new StringReader(caso[0])), cyk);
+                fail(caso[0]);
+            } catch (CYKAlgorithmException e) {
+                assertTrue(e.getMessage(), e.getMessage().startsWith(caso[1]));
+            }
+            assertEquals("", cyk.getProductions('S'));
+        }
+    }
+}
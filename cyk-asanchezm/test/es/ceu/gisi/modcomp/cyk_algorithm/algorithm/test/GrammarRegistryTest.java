@@ -0,0 +1,80 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.test;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.CYKAlgorithm;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.GrammarRegistry;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * Clase que testea la casilla superior de la tabla (derivingNonTerminals) y
+ * el reconocimiento contra varias gramáticas a la vez con GrammarRegistry.
+ *
+ * @author Álvaro Sánchez Mateos
+ */
+public class GrammarRegistryTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Test
+    public void comprobarNoTerminalesQueDerivan() throws CYKAlgorithmException {
+        // Sin axioma: la casilla superior se calcula igualmente. GrammarFile
+        // siempre establece uno, así que la gramática se declara a mano.
+        CYKAlgorithm cyk = new CYKAlgorithm();
+
+        cyk.addNonTerminal('S');
+        cyk.addNonTerminal('A');
+        cyk.addNonTerminal('B');
+        cyk.addNonTerminal('C');
+
+        cyk.addTerminal('a');
+        cyk.addTerminal('b');
+
+        cyk.addProduction('S', "AB");
+        cyk.addProduction('S', "AC");
+        cyk.addProduction('C', "SB");
+        cyk.addProduction('A', "a");
+        cyk.addProduction('B', "b");
+
+        assertEquals(new LinkedHashSet(Arrays.asList('S')), cyk.derivingNonTerminals("aabb"));
+        assertEquals(new LinkedHashSet(Arrays.asList('C')), cyk.derivingNonTerminals("abb"));
+        assertEquals(new LinkedHashSet(Arrays.asList('A')), cyk.derivingNonTerminals("a"));
+        assertTrue(cyk.derivingNonTerminals("ba").isEmpty());
+        assertTrue(cyk.derivingNonTerminals("").isEmpty());
+
+        thrown.expect(CYKAlgorithmException.class);
+        cyk.derivingNonTerminals("abc");
+    }
+
+    @Test
+    public void comprobarRegistroDeGramaticas() throws CYKAlgorithmException {
+        GrammarRegistry registro = new GrammarRegistry();
+
+        registro.register("anbn", Grammars.read(Grammars.ANBN));
+        registro.register("aes", Grammars.read(Grammars.CATALAN));
+        // Mismos nombres de no terminales que las anteriores: el registro los
+        // mantiene separados.
+        registro.register("bc", Grammars.read("S::=BC\nB::=b\nC::=c\n"));
+
+        assertEquals(new LinkedHashSet(Arrays.asList("anbn", "aes", "bc")), registro.names());
+        assertEquals(new LinkedHashSet(Arrays.asList("anbn")), registro.matchingGrammars("aabb"));
+        assertEquals(new LinkedHashSet(Arrays.asList("aes")), registro.matchingGrammars("aaa"));
+        assertEquals(new LinkedHashSet(Arrays.asList("bc")), registro.matchingGrammars("bc"));
+        assertTrue(registro.matchingGrammars("ac").isEmpty());
+
+        assertTrue(registro.unregister("aes"));
+        assertFalse(registro.unregister("aes"));
+        assertTrue(registro.matchingGrammars("aaa").isEmpty());
+        assertEquals(new LinkedHashSet(Arrays.asList("anbn")), registro.matchingGrammars("ab"));
+
+        thrown.expect(CYKAlgorithmException.class);
+        registro.matchingGrammars("xyz");
+    }
+}
@@ -0,0 +1,55 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.test;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.CYKAlgorithm;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.GrammarSnapshot;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Clase que testea la copia binaria de gramáticas con GrammarSnapshot.
+ *
+ * @author Álvaro Sánchez Mateos
+ */
+public class GrammarSnapshotTest {
+
+    @Test
+    public void comprobarCopiaBinariaDeGramatica() throws CYKAlgorithmException, IOException {
+        // El terminal c no aparece en ninguna producción y se declara el
+        // primero: no se puede escribir en un fichero de gramática.
+        CYKAlgorithm cyk = new CYKAlgorithm();
+
+        cyk.addNonTerminal('S');
+        cyk.addNonTerminal('A');
+        cyk.addNonTerminal('B');
+
+        cyk.addTerminal('c');
+        cyk.addTerminal('a');
+        cyk.addTerminal('b');
+
+        cyk.setStartSymbol('S');
+
+        cyk.addProduction('S', "AB");
+        cyk.addProduction('S', "AS");
+        cyk.addProduction('A', "a");
+        cyk.addProduction('B', "b");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        GrammarSnapshot.write(cyk, new DataOutputStream(bytes));
+        CYKAlgorithm copia = GrammarSnapshot.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        // Se conservan el terminal sin producciones y el orden de los
+        // identificadores de token.
+        assertEquals(cyk.getProductions('S'), copia.getProductions('S'));
+        assertEquals(0, copia.getCompiledGrammar().terminalIndex('c'));
+        assertTrue(copia.isDerived("aab"));
+        assertFalse(copia.isDerived("acb"));
+    }
+}
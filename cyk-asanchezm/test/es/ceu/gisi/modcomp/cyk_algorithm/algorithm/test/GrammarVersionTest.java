@@ -0,0 +1,105 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.test;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.CYKAlgorithm;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.CompiledGrammar;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * Clase que testea las versiones inmutables de la gramática y su recarga en
+ * caliente.
+ *
+ * @author Álvaro Sánchez Mateos
+ */
+public class GrammarVersionTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Test
+    public void comprobarVersionesDeGramatica() throws Exception {
+        CYKAlgorithm cyk = Grammars.read("S::=AB\nA::=a\nB::=b\n");
+
+        // La copia conserva la versión con la que se hizo.
+        CYKAlgorithm copia = new CYKAlgorithm(cyk);
+        assertEquals(cyk.getVersion(), copia.getVersion());
+        cyk.addProduction('S', "SB");
+        assertTrue(cyk.getVersion() > copia.getVersion());
+        assertTrue(cyk.isDerived("abb"));
+        assertFalse(copia.isDerived("abb"));
+
+        // removeGrammar publica una versión vacía sin tocar la de la copia.
+        long anterior = cyk.getVersion();
+        cyk.removeGrammar();
+        assertTrue(cyk.getVersion() > anterior);
+        assertEquals("", cyk.getProductions('S'));
+        assertEquals("S::=AB", copia.getProductions('S'));
+
+        // Recarga: se publica la gramática construida aparte.
+        CYKAlgorithm nueva = Grammars.read(Grammars.CATALAN);
+        long publicada = copia.reload(nueva).get();
+        assertEquals(nueva.getVersion(), publicada);
+        assertEquals(publicada, copia.getVersion());
+        assertTrue(copia.isDerived("aaaa"));
+        thrown.expect(CYKAlgorithmException.class);
+        copia.isDerived("ab");
+    }
+
+    @Test
+    public void comprobarRecargasSolapadas() throws Exception {
+        CYKAlgorithm cyk = Grammars.read(Grammars.ANBN);
+        CYKAlgorithm primera = Grammars.read(Grammars.CATALAN);
+        CYKAlgorithm segunda = Grammars.read(Grammars.EJEMPLO);
+
+        // Las dos recargas se compilan en el orden contrario al que se
+        // pidieron: la primera termina la última, pero no se publica.
+        ArrayList<Runnable> compilaciones = new ArrayList();
+        CompletableFuture<Long> antigua = cyk.reload(primera, compilaciones::add);
+        CompletableFuture<Long> reciente = cyk.reload(segunda, compilaciones::add);
+        compilaciones.get(1).run();
+        compilaciones.get(0).run();
+
+        assertEquals(segunda.getVersion(), (long) reciente.get());
+        assertEquals(segunda.getVersion(), (long) antigua.get());
+        assertEquals(segunda.getVersion(), cyk.getVersion());
+        assertTrue(cyk.isDerived("baaba"));
+        assertFalse(cyk.isDerived("aaaa"));
+    }
+
+    @Test
+    public void comprobarCompilacionUnica() throws Exception {
+        CYKAlgorithm cyk = Grammars.read(Grammars.EJEMPLO);
+
+        // Varios hilos piden a la vez la versión recién publicada: sólo uno
+        // la compila y todos reciben la misma gramática compilada.
+        ExecutorService hilos = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch salida = new CountDownLatch(1);
+            ArrayList<Future<CompiledGrammar>> compiladas = new ArrayList();
+            for (int indice = 0; indice < 8; indice++) {
+                compiladas.add(hilos.submit(() -> {
+                    salida.await();
+                    return cyk.getCompiledGrammar();
+                }));
+            }
+            salida.countDown();
+            for (Future<CompiledGrammar> compilada : compiladas) {
+                assertSame(cyk.getCompiledGrammar(), compilada.get());
+            }
+        } finally {
+            hilos.shutdown();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.test;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.CYKAlgorithm;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.GrammarFile;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+
+/**
+ * Gramáticas de ejemplo para los tests, en el formato de GrammarFile.
+ *
+ * @author Álvaro Sánchez Mateos
+ */
+public final class Grammars {
+
+    /**
+     * a^n b^n con n >= 1, sin ambigüedad.
+     */
+    public static final String ANBN = "S::=AB|AC\nC::=SB\nA::=a\nB::=b\n";
+
+    /**
+     * La gramática del ejemplo paso a paso del enunciado.
+     */
+    public static final String EJEMPLO = "S::=AB|BC\nA::=BA|a\nB::=CC|b\nC::=AB|a\n";
+
+    /**
+     * a^n con n >= 1: a^n tiene tantos árboles como el número de Catalan
+     * C(n-1).
+     */
+    public static final String CATALAN = "S::=SS|a\n";
+
+    private Grammars() {
+    }
+
+    /**
+     * Gramática con todas las producciones A::=a y A::=BC posibles sobre los
+     * numNoTerminales primeros no terminales a partir de A: todas las
+     * casillas de la tabla contienen todos los no terminales.
+     *
+     * @param numNoTerminales Número de no terminales (como mucho 26).
+     * @return El texto de la gramática.
+     */
+    public static String complete(int numNoTerminales) {
+        StringBuilder texto = new StringBuilder();
+        char ultimo = (char) ('A' + numNoTerminales);
+        for (char cabeza = 'A'; cabeza < ultimo; cabeza++) {
+            texto.append(cabeza).append("::=a");
+            for (char izquierda = 'A'; izquierda < ultimo; izquierda++) {
+                for (char derecha = 'A'; derecha < ultimo; derecha++) {
+                    texto.append('|').append(izquierda).append(derecha);
+                }
+            }
+            texto.append('\n');
+        }
+        return texto.toString();
+    }
+
+    /**
+     * Carga la gramática indicada en un algoritmo nuevo con GrammarFile.read.
+     *
+     * @param texto Las líneas de la gramática.
+     * @return El algoritmo con la gramática cargada.
+     * @throws CYKAlgorithmException Si la gramática no es válida.
+     */
+    public static CYKAlgorithm read(String texto) throws CYKAlgorithmException {
+        CYKAlgorithm cyk = new CYKAlgorithm();
+        try {
+            GrammarFile.read(new BufferedReader(new StringReader(texto)), cyk);
+        } catch (IOException e) {
+            // StringReader nunca lanza IOException.
+            throw new UncheckedIOException(e);
+        }
+        return cyk;
+    }
+}
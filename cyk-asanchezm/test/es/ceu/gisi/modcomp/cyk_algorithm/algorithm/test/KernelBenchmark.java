@@ -0,0 +1,105 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.test;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.CYKAlgorithm;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.CompiledGrammar;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.Random;
+
+/**
+ * Prueba de rendimiento (no es un test de JUnit) que compara las operaciones
+ * de bits escalares y vectoriales de la tabla de CYK con una gramática
+ * aleatoria grande, con varios longs por casilla. Para que la versión
+ * vectorial esté disponible hay que ejecutarla con "--add-modules
+ * jdk.incubator.vector".
+ *
+ * Uso: KernelBenchmark [noTerminales] [longitudPalabra] [palabras]
+ *
+ * @author Álvaro Sánchez Mateos
+ */
+public class KernelBenchmark {
+
+    public static void main(String[] args) throws CYKAlgorithmException {
+        int numNoTerminales = (args.length > 0) ? Integer.parseInt(args[0]) : 512;
+        int longitud = (args.length > 1) ? Integer.parseInt(args[1]) : 24;
+        int numPalabras = (args.length > 2) ? Integer.parseInt(args[2]) : 40;
+
+        Random aleatorio = new Random(42);
+        String gramatica = gramaticaAleatoria(numNoTerminales, aleatorio);
+        String[] palabras = new String[numPalabras];
+        for (int indice = 0; indice < numPalabras; indice++) {
+            StringBuilder palabra = new StringBuilder();
+            for (int posicion = 0; posicion < longitud; posicion++) {
+                palabra.append((char) ('a' + aleatorio.nextInt(4)));
+            }
+            palabras[indice] = palabra.toString();
+        }
+
+        String anterior = System.getProperty("cyk.kernel");
+        try {
+            for (String modo : new String[]{"scalar", "vector"}) {
+                // El núcleo se elige al compilar: cada modo carga su propia
+                // gramática, porque una copia compartiría la ya compilada.
+                System.setProperty("cyk.kernel", modo);
+                CYKAlgorithm cyk = Grammars.read(gramatica);
+                CompiledGrammar compilada = cyk.getCompiledGrammar();
+
+                // Calentamiento para que el JIT compile el bucle de relleno.
+                for (int indice = 0; indice < numPalabras; indice++) {
+                    cyk.isDerived(palabras[indice]);
+                }
+                int aceptadas = 0;
+                long inicio = System.nanoTime();
+                for (int ronda = 0; ronda < 3; ronda++) {
+                    for (int indice = 0; indice < numPalabras; indice++) {
+                        if (cyk.isDerived(palabras[indice])) {
+                            aceptadas++;
+                        }
+                    }
+                }
+                long nanos = System.nanoTime() - inicio;
+                System.out.printf("%-14s motor=%s aceptadas=%d %.3f ms/palabra%n", compilada.getKernelName(),
+                        compilada.getEngine(), aceptadas / 3, nanos / 1e6 / (3 * numPalabras));
+            }
+        } finally {
+            if (anterior == null) {
+                System.clearProperty("cyk.kernel");
+            } else {
+                System.setProperty("cyk.kernel", anterior);
+            }
+        }
+    }
+
+    /**
+     * Gramática, en el formato de GrammarFile, con los primeros
+     * numNoTerminales caracteres Unicode en mayúscula como no terminales,
+     * terminales a-d y reglas binarias aleatorias. Hay algo más de 1100
+     * mayúsculas en el plano básico.
+     */
+    private static String gramaticaAleatoria(int numNoTerminales, Random aleatorio) {
+        ArrayList<Character> noTerminales = new ArrayList();
+        for (char simbolo = 'A'; noTerminales.size() < numNoTerminales; simbolo++) {
+            if (simbolo == Character.MAX_VALUE) {
+                throw new IllegalArgumentException("No hay tantas mayúsculas: " + noTerminales.size());
+            }
+            if (Character.isUpperCase(simbolo)) {
+                noTerminales.add(simbolo);
+            }
+        }
+
+        StringBuilder texto = new StringBuilder();
+        for (char cabeza : noTerminales) {
+            // Las producciones repetidas se descartan.
+            LinkedHashSet<String> producciones = new LinkedHashSet();
+            producciones.add(String.valueOf((char) ('a' + aleatorio.nextInt(4))));
+            for (int regla = 0; regla < 8; regla++) {
+                char izquierda = noTerminales.get(aleatorio.nextInt(numNoTerminales));
+                char derecha = noTerminales.get(aleatorio.nextInt(numNoTerminales));
+                producciones.add("" + izquierda + derecha);
+            }
+            texto.append(cabeza).append("::=").append(String.join("|", producciones)).append('\n');
+        }
+        return texto.toString();
+    }
+}
@@ -0,0 +1,86 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.test;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.CYKAlgorithm;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.ParseLimits;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.ParseLimitExceededException;
+import java.time.Duration;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * Clase que testea los plazos, presupuestos de operaciones y cancelación del
+ * análisis.
+ *
+ * @author Álvaro Sánchez Mateos
+ */
+public class ParseLimitsTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Test
+    public void comprobarLimitesDeAnalisis() throws CYKAlgorithmException {
+        CYKAlgorithm cyk = Grammars.read(Grammars.ANBN);
+
+        String palabra = "a".repeat(100) + "b".repeat(100);
+        assertTrue(cyk.isDerived(palabra, Duration.ofMinutes(1)));
+        assertTrue(cyk.isDerived(palabra, ParseLimits.NONE.withMaxOperations(Long.MAX_VALUE)));
+
+        // Presupuesto insuficiente: se informa de hasta dónde se llegó.
+        try {
+            cyk.isDerived(palabra, 1000);
+            fail();
+        } catch (ParseLimitExceededException e) {
+            assertEquals(ParseLimitExceededException.Limit.BUDGET, e.getLimit());
+            assertEquals(200, e.getWordLength());
+            assertTrue(e.getOperations() <= 1000);
+            assertTrue(e.getCompletedLength() >= 1);
+            assertTrue(e.getCompletedLength() < 200);
+        }
+
+        // Plazo vencido y cancelación.
+        try {
+            cyk.isDerived(palabra, ParseLimits.NONE.withDeadline(System.nanoTime() - 1));
+            fail();
+        } catch (ParseLimitExceededException e) {
+            assertEquals(ParseLimitExceededException.Limit.DEADLINE, e.getLimit());
+        }
+        try {
+            cyk.isDerived(palabra, ParseLimits.NONE.withCancellation(() -> true));
+            fail();
+        } catch (ParseLimitExceededException e) {
+            assertEquals(ParseLimitExceededException.Limit.CANCELLED, e.getLimit());
+        }
+
+        // Sigue siendo una CYKAlgorithmException.
+        thrown.expect(CYKAlgorithmException.class);
+        cyk.isDerived(palabra, 0);
+    }
+
+    @Test
+    public void comprobarRetrasoDelPlazo() throws CYKAlgorithmException {
+        // Cada corte combina 26 x 26 pares: el plazo vence con la tabla a
+        // medias, y se detecta poco después aunque las casillas de las filas
+        // largas tengan cientos de cortes.
+        CYKAlgorithm cyk = Grammars.read(Grammars.complete(26));
+        cyk.getCompiledGrammar();
+        String palabra = "a".repeat(300);
+
+        long plazo = Duration.ofMillis(100).toNanos();
+        long inicio = System.nanoTime();
+        try {
+            cyk.isDerived(palabra, ParseLimits.NONE.withDeadline(inicio + plazo));
+            fail();
+        } catch (ParseLimitExceededException e) {
+            long retraso = System.nanoTime() - inicio - plazo;
+            assertEquals(ParseLimitExceededException.Limit.DEADLINE, e.getLimit());
+            assertTrue(e.getCompletedLength() < 300);
+            assertTrue("Retraso de " + (retraso / 1000000) + " ms", retraso < plazo);
+        }
+    }
+}
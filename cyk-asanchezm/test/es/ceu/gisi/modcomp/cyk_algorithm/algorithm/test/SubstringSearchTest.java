@@ -0,0 +1,44 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.test;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.CYKAlgorithm;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.SubstringSearch;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ * Clase que testea la búsqueda de subcadenas derivables desde el axioma.
+ *
+ * @author Álvaro Sánchez Mateos
+ */
+public class SubstringSearchTest {
+
+    @Test
+    public void comprobarBusquedaDeSubcadenas() throws CYKAlgorithmException, IOException {
+        CYKAlgorithm cyk = Grammars.read(Grammars.ANBN);
+
+        // Los caracteres que no son terminales cortan las subcadenas.
+        SubstringSearch busqueda = new SubstringSearch(cyk, 10);
+        List<long[]> encontradas = busqueda.findAll("xaabbab.ab");
+        assertEquals("[2, 4][1, 5][5, 7][8, 10]", spansToString(encontradas));
+
+        StringBuilder desdeReader = new StringBuilder();
+        busqueda.search(new StringReader("xaabbab.ab"), (inicio, fin) -> desdeReader.append(Arrays.toString(new long[]{inicio, fin})));
+        assertEquals("[2, 4][1, 5][5, 7][8, 10]", desdeReader.toString());
+
+        // Con maxSpan 3 no cabe "aabb".
+        assertEquals("[2, 4][5, 7][8, 10]", spansToString(new SubstringSearch(cyk, 3).findAll("xaabbab.ab")));
+    }
+
+    private static String spansToString(List<long[]> spans) {
+        StringBuilder resultado = new StringBuilder();
+        for (long[] span : spans) {
+            resultado.append(Arrays.toString(span));
+        }
+        return resultado.toString();
+    }
+}
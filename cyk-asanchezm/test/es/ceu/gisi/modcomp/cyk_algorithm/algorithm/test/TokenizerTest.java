@@ -0,0 +1,67 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.test;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.CYKAlgorithm;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.CompiledGrammar;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.LexemeTable;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import java.util.HashMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * Clase que testea el análisis de palabras dadas como identificadores de
+ * token y los tokenizadores.
+ *
+ * @author Álvaro Sánchez Mateos
+ */
+public class TokenizerTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Test
+    public void comprobarEntradaDeTokens() throws CYKAlgorithmException {
+        CYKAlgorithm cyk = Grammars.read("S::=AB|AS\nA::=a\nB::=b\n");
+
+        // Los identificadores son los índices de declaración de los terminales.
+        CompiledGrammar compilada = cyk.getCompiledGrammar();
+        assertEquals(0, compilada.terminalIndex('a'));
+        assertEquals(1, compilada.terminalIndex('b'));
+        assertEquals(2, compilada.getTerminalCount());
+        assertTrue(cyk.isDerived(new int[]{0, 0, 1}));
+        assertFalse(cyk.isDerived(new int[]{1, 0}));
+        assertTrue(cyk.isDerived("aab", compilada));
+
+        // Muchos lexemas en la tabla, con sus colisiones.
+        HashMap<String, Character> lexemas = new HashMap();
+        for (int indice = 0; indice < 1000; indice++) {
+            lexemas.put("id" + indice, ((indice % 2) == 0) ? 'a' : 'b');
+        }
+        lexemas.put("if", 'a');
+        lexemas.put("then", 'b');
+        LexemeTable tabla = new LexemeTable(cyk, lexemas);
+        for (int indice = 0; indice < 1000; indice++) {
+            String lexema = "  id" + indice + " ";
+            assertEquals(indice % 2, tabla.lookup(lexema, 2, lexema.length() - 1));
+        }
+        assertEquals(-1, tabla.lookup("id1000", 0, 6));
+        assertEquals(-1, tabla.lookup("id1", 0, 2));
+
+        assertTrue(cyk.isDerived("if  id0\tthen", tabla));
+        assertFalse(cyk.isDerived("then if", tabla));
+        assertEquals(0, tabla.tokenize("   ").length);
+
+        try {
+            cyk.isDerived("if else", tabla);
+            fail();
+        } catch (CYKAlgorithmException e) {
+        }
+        thrown.expect(CYKAlgorithmException.class);
+        cyk.isDerived(new int[]{0, 2});
+    }
+}
@@ -0,0 +1,98 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.algorithm.test;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.CYKAlgorithm;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.WordGenerator;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * Clase que testea la generación de palabras al azar y de negativos
+ * cercanos.
+ *
+ * @author Álvaro Sánchez Mateos
+ */
+public class WordGeneratorTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Test
+    public void comprobarGeneradorDePalabras() throws CYKAlgorithmException, IOException {
+        // a^n b^n, sin ambigüedad.
+        CYKAlgorithm cyk = Grammars.read(Grammars.ANBN);
+
+        WordGenerator generador = new WordGenerator(cyk, 40);
+        assertEquals(BigInteger.ZERO, generador.count(0));
+        assertEquals(BigInteger.ZERO, generador.count(3));
+        assertEquals(BigInteger.ONE, generador.count(40));
+
+        Random aleatorio = new Random(7);
+        assertEquals("aaabbb", generador.sample(6, aleatorio));
+        // Las comprobaciones de los negativos cercanos no cuentan en las
+        // estadísticas del prefiltro.
+        long prefiltradas = cyk.getCompiledGrammar().getPrefilterChecks();
+        ArrayList<String> cercanas = new ArrayList();
+        for (int indice = 0; indice < 50; indice++) {
+            cercanas.add(generador.nearMiss(12, aleatorio));
+        }
+        assertEquals(prefiltradas, cyk.getCompiledGrammar().getPrefilterChecks());
+        for (String negativa : cercanas) {
+            assertEquals(12, negativa.length());
+            assertFalse(cyk.isDerived(negativa));
+        }
+
+        ArrayList<String> positivas = new ArrayList();
+        ArrayList<String> negativas = new ArrayList();
+        generador.generate(200, 1, 20, 0.5, aleatorio,
+                (palabra, pertenece) -> (pertenece ? positivas : negativas).add(palabra));
+        assertEquals(200, positivas.size() + negativas.size());
+        assertTrue(negativas.size() > 50);
+        for (String palabra : positivas) {
+            assertTrue(cyk.isDerived(palabra));
+        }
+        for (String palabra : negativas) {
+            assertFalse(cyk.isDerived(palabra));
+        }
+
+        // Con la gramática de a^n ambigua se cuentan árboles: números de
+        // Catalan. Como todas las palabras a^n pertenecen, no hay negativos
+        // cercanos.
+        WordGenerator arboles = new WordGenerator(Grammars.read(Grammars.CATALAN), 30);
+        assertEquals(BigInteger.valueOf(429), arboles.count(8));
+        assertEquals(new BigInteger("1002242216651368"), arboles.count(30));
+        assertEquals("aaaaaaaaaaaaaaaaaaaaaaaaaaaaaa", arboles.sample(30, aleatorio));
+        assertEquals(null, arboles.nearMiss(5, aleatorio));
+
+        thrown.expect(IllegalArgumentException.class);
+        generador.sample(5, aleatorio);
+    }
+
+    @Test
+    public void comprobarMuestraUniforme() throws CYKAlgorithmException {
+        // Todas las palabras sobre {a, b}, con un único árbol cada una y
+        // varias reglas por no terminal: las 8 palabras de longitud 3 salen
+        // con la misma frecuencia.
+        WordGenerator generador = new WordGenerator(Grammars.read("S::=AS|BS|a|b\nA::=a\nB::=b\n"), 3);
+        assertEquals(BigInteger.valueOf(8), generador.count(3));
+
+        Random aleatorio = new Random(11);
+        HashMap<String, Integer> frecuencias = new HashMap();
+        for (int indice = 0; indice < 8000; indice++) {
+            frecuencias.merge(generador.sample(3, aleatorio), 1, Integer::sum);
+        }
+        assertEquals(8, frecuencias.size());
+        for (int frecuencia : frecuencias.values()) {
+            assertTrue("Frecuencia " + frecuencia, Math.abs(frecuencia - 1000) < 150);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.cli.test;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.CYKAlgorithm;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.GrammarFile;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import es.ceu.gisi.modcomp.cyk_algorithm.cli.ShardedRecognizer;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.Assert.assertEquals;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Clase que testea el reconocimiento repartido entre procesos, lanzando los
+ * procesos de reconocimiento en la propia máquina.
+ *
+ * @author Álvaro Sánchez Mateos
+ */
+public class ShardedRecognizerTest {
+
+    private CYKAlgorithm cyk;
+    private String entrada;
+    private String esperada;
+
+    @Before
+    public void preparar() throws IOException, CYKAlgorithmException {
+        cyk = new CYKAlgorithm();
+        GrammarFile.read(new BufferedReader(new StringReader("S::=AB|BC\nA::=BA|a\nB::=CC|b\nC::=AB|a\n")), cyk);
+
+        // Palabras de longitudes muy distintas, para que los lotes tengan
+        // tamaños distintos, y alguna con símbolos que no son terminales.
+        Random aleatorio = new Random(11);
+        StringBuilder palabras = new StringBuilder();
+        StringBuilder resultados = new StringBuilder();
+        for (int indice = 0; indice < 3000; indice++) {
+            StringBuilder palabra = new StringBuilder();
+            int longitud = 1 + aleatorio.nextInt((indice % 10 == 0) ? 40 : 8);
+            for (int simbolo = 0; simbolo < longitud; simbolo++) {
+                palabra.append((aleatorio.nextInt(50) == 0) ? 'x' : (aleatorio.nextBoolean() ? 'a' : 'b'));
+            }
+            String resultado;
+            try {
+                resultado = Boolean.toString(cyk.isDerived(palabra.toString()));
+            } catch (CYKAlgorithmException e) {
+                resultado = "error";
+            }
+            palabras.append(palabra).append('\n');
+            resultados.append(palabra).append('\t').append(resultado).append('\n');
+        }
+        entrada = palabras.toString();
+        esperada = resultados.toString();
+    }
+
+    @Test
+    public void comprobarRepartoEnOrden() throws IOException, InterruptedException {
+        // Lotes pequeños: muchos más lotes que procesos, respondidos en
+        // cualquier orden.
+        ShardedRecognizer coordinador = new ShardedRecognizer(cyk, 3, 2000, 0);
+        assertEquals(esperada, ejecutar(coordinador));
+        assertEquals(3000, coordinador.getWordCount());
+        assertEquals(0, coordinador.getRestarts());
+    }
+
+    @Test
+    public void comprobarReinicioDeProcesos() throws IOException, InterruptedException {
+        // El primer proceso lee un poco de la cabecera y termina: sus lotes se
+        // reparten de nuevo y el proceso se relanza.
+        AtomicInteger arrancados = new AtomicInteger();
+        ShardedRecognizer.WorkerLauncher local = ShardedRecognizer.localJvm();
+        ShardedRecognizer coordinador = new ShardedRecognizer(cyk, 2, 5000, 0, 2, () -> {
+            if (arrancados.getAndIncrement() == 0) {
+                return new ProcessBuilder("sh", "-c", "exec head -c 16 > /dev/null").start();
+            }
+            return local.start();
+        });
+        assertEquals(esperada, ejecutar(coordinador));
+        assertEquals(1, coordinador.getRestarts());
+        assertEquals(3, arrancados.get());
+    }
+
+    @Test
+    public void comprobarProcesoColgado() throws IOException, InterruptedException {
+        // El primer proceso no lee nada ni responde: al vencer el plazo de su
+        // lote más antiguo se mata, sus lotes se reparten de nuevo y se
+        // relanza.
+        AtomicInteger arrancados = new AtomicInteger();
+        ShardedRecognizer.WorkerLauncher local = ShardedRecognizer.localJvm();
+        ShardedRecognizer coordinador = new ShardedRecognizer(cyk, 2, 5000, 0, 5000, 2, () -> {
+            if (arrancados.getAndIncrement() == 0) {
+                return new ProcessBuilder("sh", "-c", "exec sleep 600").start();
+            }
+            return local.start();
+        });
+        assertEquals(esperada, ejecutar(coordinador));
+        assertEquals(1, coordinador.getRestarts());
+        assertEquals(3, arrancados.get());
+    }
+
+    private String ejecutar(ShardedRecognizer coordinador) throws IOException, InterruptedException {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        coordinador.run(Channels.newChannel(new ByteArrayInputStream(entrada.getBytes(StandardCharsets.UTF_8))),
+                Channels.newChannel(salida));
+        return salida.toString(StandardCharsets.UTF_8);
+    }
+}
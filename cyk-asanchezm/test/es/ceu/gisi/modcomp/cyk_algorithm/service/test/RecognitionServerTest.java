@@ -0,0 +1,129 @@
+package es.ceu.gisi.modcomp.cyk_algorithm.service.test;
+
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.CYKAlgorithm;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.GrammarFile;
+import es.ceu.gisi.modcomp.cyk_algorithm.algorithm.exceptions.CYKAlgorithmException;
+import es.ceu.gisi.modcomp.cyk_algorithm.service.RecognitionServer;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Clase que testea el servicio HTTP de reconocimiento, arrancándolo en la
+ * interfaz local con un puerto libre.
+ *
+ * @author Álvaro Sánchez Mateos
+ */
+public class RecognitionServerTest {
+
+    private RecognitionServer servidor;
+
+    @Before
+    public void arrancar() throws IOException, CYKAlgorithmException {
+        CYKAlgorithm cyk = new CYKAlgorithm();
+        GrammarFile.read(new BufferedReader(new StringReader("S::=AB|BC\nA::=BA|a\nB::=CC|b\nC::=AB|a\n")), cyk);
+
+        servidor = new RecognitionServer(0, 2, 64, 1000);
+        servidor.addGrammar("ejemplo", cyk);
+        servidor.start();
+    }
+
+    @After
+    public void detener() {
+        servidor.stop();
+    }
+
+    @Test
+    public void comprobarReconocimientoIndividual() throws IOException {
+        assertEquals("true\n", peticion("POST", "/grammars/ejemplo/recognize", "baaba"));
+        assertEquals("false\n", peticion("POST", "/grammars/ejemplo/recognize", "bbb"));
+        assertEquals("ejemplo\n", peticion("GET", "/grammars", null));
+    }
+
+    @Test
+    public void comprobarReconocimientoPorLotes() throws IOException {
+        assertEquals("true\nfalse\nerror\ntrue\n",
+                peticion("POST", "/grammars/ejemplo/batch", "baaba\nbbb\nbxb\nbaaba\n"));
+
+        // Los espacios de los extremos se ignoran igual en los dos puntos de
+        // entrada.
+        assertEquals("true\n", peticion("POST", "/grammars/ejemplo/recognize", " baaba \r\n"));
+        assertEquals("true\nfalse\n", peticion("POST", "/grammars/ejemplo/batch", " baaba \r\nbbb\t\n"));
+    }
+
+    @Test
+    public void comprobarPeticionesConcurrentes() throws Exception {
+        ExecutorService clientes = Executors.newFixedThreadPool(8);
+        List<Future<String>> respuestas = new ArrayList();
+        for (int indice = 0; indice < 64; indice++) {
+            String palabra = (indice % 2 == 0) ? "baaba" : "bbb";
+            respuestas.add(clientes.submit(() -> peticion("POST", "/grammars/ejemplo/recognize", palabra)));
+        }
+        for (int indice = 0; indice < 64; indice++) {
+            assertEquals((indice % 2 == 0) ? "true\n" : "false\n", respuestas.get(indice).get());
+        }
+        clientes.shutdown();
+
+        String metricas = peticion("GET", "/metrics", null);
+        assertTrue(metricas.contains("words 64\n"));
+        assertTrue(metricas.contains("prefilter_rejection_rate{grammar=\"ejemplo\"} "));
+    }
+
+    @Test
+    public void comprobarRecargaEnCaliente() throws Exception {
+        // Tráfico continuo mientras se sustituye la gramática: ninguna
+        // petición falla, y cada una responde con la versión antigua o la
+        // nueva.
+        ExecutorService clientes = Executors.newFixedThreadPool(4);
+        List<Future<String>> respuestas = new ArrayList();
+        for (int indice = 0; indice < 200; indice++) {
+            respuestas.add(clientes.submit(() -> peticion("POST", "/grammars/ejemplo/recognize", "baaba")));
+        }
+        String version = peticion("PUT", "/grammars/ejemplo", "S::=AB\nA::=a\nB::=b\n");
+        assertTrue(version.startsWith("version "));
+        for (Future<String> respuesta : respuestas) {
+            String texto = respuesta.get();
+            assertTrue(texto.equals("true\n") || texto.equals("false\n"));
+        }
+        clientes.shutdown();
+
+        assertEquals("false\n", peticion("POST", "/grammars/ejemplo/recognize", "baaba"));
+        assertEquals("true\n", peticion("POST", "/grammars/ejemplo/recognize", "ab"));
+
+        // Con un nombre nuevo, la gramática se añade.
+        assertTrue(peticion("PUT", "/grammars/otra", "S::=SS|a\n").startsWith("version "));
+        assertEquals("ejemplo\notra\n", peticion("GET", "/grammars", null));
+        assertEquals("true\n", peticion("POST", "/grammars/otra/recognize", "aaa"));
+    }
+
+    private String peticion(String metodo, String ruta, String cuerpo) throws IOException {
+        URL url = new URL("http://127.0.0.1:" + servidor.getPort() + ruta);
+        HttpURLConnection conexion = (HttpURLConnection) url.openConnection();
+        conexion.setRequestMethod(metodo);
+        if (cuerpo != null) {
+            conexion.setDoOutput(true);
+            try (OutputStream salida = conexion.getOutputStream()) {
+                salida.write(cuerpo.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        try {
+            return new String(conexion.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        } finally {
+            conexion.disconnect();
+        }
+    }
+}